@@ -0,0 +1,42 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+
+/**
+ * Boards and scenarios for benchmarks
+ */
+final class BenchmarkBoards {
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * Creates the board from the example of the assignment ([0,0] [4,2] [2,7] [7,4] [0,8] [1,4]) scaled to the input size.
+     * The radii of inspectors are not scaled, so on big boards most of the cells are safe
+     *
+     * @param sizeOfGrid length of one row (or column), at least 9
+     */
+    static Board createBoard(int sizeOfGrid) throws IllegalInputCoordinate, HarryIsCapturedException {
+        return new Board(sizeOfGrid, Solution.filchRadius, Solution.catRadius,
+                new Coordinate(0, 0),
+                new Coordinate(scale(4, sizeOfGrid), scale(2, sizeOfGrid)),
+                new Coordinate(scale(2, sizeOfGrid), scale(7, sizeOfGrid)),
+                new Coordinate(scale(7, sizeOfGrid), scale(4, sizeOfGrid)),
+                new Coordinate(0, sizeOfGrid - 1),
+                new Coordinate(scale(1, sizeOfGrid), scale(4, sizeOfGrid)));
+    }
+
+    /**
+     * Parses scenario in format of BOOK_EXIT, CLOAK_BOOK_EXIT or BOOK_CLOAK_EXIT
+     */
+    static ArrayList<TypeOfCell> parseScenario(String scenarioInString) {
+        ArrayList<TypeOfCell> scenario = new ArrayList<>();
+        for (String subject : scenarioInString.split("_")) {
+            scenario.add(TypeOfCell.valueOf(subject));
+        }
+        return scenario;
+    }
+
+    private static int scale(int coordinateOnDefaultBoard, int sizeOfGrid) {
+        return coordinateOnDefaultBoard * sizeOfGrid / Solution.sizeOfGrid;
+    }
+}
@@ -0,0 +1,64 @@
+package eduard.zaripov;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One scenario of {@link Solution} by polynomial searches on boards from the default 9x9 to thousands of cells per row
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FindPathBenchmark {
+    @Param({"BFS", "BidirectionalBFS", "AStar", "DialAStar", "JumpPointSearch"})
+    public String algorithm;
+
+    @Param({"9", "64", "512", "2048", "4096"})
+    public int sizeOfGrid;
+
+    @Param({"1", "2"})
+    public int radius;
+
+    @Param({"BOOK_EXIT", "CLOAK_BOOK_EXIT", "BOOK_CLOAK_EXIT"})
+    public String scenario;
+
+    private Solution solution;
+    private FindPathInterface typeOfSearch;
+    private ArrayList<TypeOfCell> scenarioToFind;
+
+    @Setup
+    public void setUp() throws Exception {
+        solution = new Solution(BenchmarkBoards.createBoard(sizeOfGrid), new Perception(radius));
+        typeOfSearch = (FindPathInterface) Class.forName("eduard.zaripov." + algorithm).getDeclaredConstructor().newInstance();
+        scenarioToFind = BenchmarkBoards.parseScenario(scenario);
+    }
+
+    /**
+     * @return path or null if there is no path or Harry is captured
+     */
+    @Benchmark
+    public ArrayList<ArrayList<Coordinate>> findPath() {
+        // Otherwise all invocations after the first one take paths from the cache
+        solution.getLegCache().clear();
+        try {
+            return solution.findPath(typeOfSearch, scenarioToFind);
+        } catch (HarryIsCapturedException e) {
+            return null;
+        }
+    }
+}
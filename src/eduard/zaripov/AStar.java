@@ -1,114 +1,129 @@
 package eduard.zaripov;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.LinkedList;
 
+/**
+ * Algorithm for finding path from coordinate to subject using A* algorithm
+ * <p>Cells are identified by their index on the board. The open set is {@link IndexedMinHeap} keyed by f = g + h,
+ * so choosing the next cell and updating a better path to the cell in the open set take O(log n).
+ * The closed set is a bitset. All of them are buffers of {@link SearchArena} of the current thread, so the search
+ * doesn't allocate them for each call</p>
+ */
 public class AStar implements FindPathInterface {
-    private ArrayList<Coordinate> detectedDangerNodes = new ArrayList<>();
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
 
-    private static class NodeForAStar extends Node {
-        private int g = -1;
-        private double h = -1;
+    /**
+     * Counters of the work or null if they are not needed
+     */
+    private SearchMetrics metrics;
 
-        public int getG() {
-            return g;
-        }
-
-        public void setG(int g) {
-            this.g = g;
-        }
-
-        public double getH() {
-            return h;
-        }
-
-        public double getF() {
-            return g + h;
-        }
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
 
-        public void setH(double h) {
-            this.h = h;
-        }
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
     }
 
+    /**
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
     @Override
     public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
-        ArrayList<ArrayList<NodeForAStar>> cellsInfo = new ArrayList<>();
         if (updateDetection) {
-            detectedDangerNodes = new ArrayList<>();
+            detectedDangerNodes.clear();
         }
-        for (int row = 0; row < board.size(); row++) {
-            cellsInfo.add(new ArrayList<>());
-            for (int column = 0; column < board.size(); column++) {
-                cellsInfo.get(row).add(new NodeForAStar());
-            }
-        }
-
-        LinkedList<Coordinate> open = new LinkedList<>();
-        ArrayList<Coordinate> closed = new ArrayList<>();
-        cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setG(0);
-        cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setH(getHeuristic(startPosition, board.getPositionOfSubject(subjectToFind)));
-        cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setPrevious(null);
-        open.add(startPosition);
-        ArrayList<Coordinate> path = new ArrayList<>();
-
-        while (!open.isEmpty()) {
-            Coordinate current = open.peek();
-            for (Coordinate coordinate : open) {
-                if (cellsInfo.get(coordinate.getX()).get(coordinate.getY()).getF() < cellsInfo.get(coordinate.getX()).get(coordinate.getY()).getF()) {
-                    current = coordinate;
+        int sizeOfGrid = board.size();
+        int numberOfCells = sizeOfGrid * sizeOfGrid;
+        Coordinate target = board.getPositionOfSubject(subjectToFind);
+        NeighborTable neighbors = NeighborTable.forSize(sizeOfGrid);
+
+        SearchArena arena = SearchArena.current();
+        arena.prepare(numberOfCells);
+        int[] g = arena.getCosts(numberOfCells);
+        int[] previous = arena.getParent();
+        IndexedMinHeap open = arena.getHeap(numberOfCells);
+
+        int start = board.index(startPosition);
+        g[start] = 0;
+        previous[start] = -1;
+        open.push(start, getHeuristic(start / sizeOfGrid, start % sizeOfGrid, target));
+
+        // Work of the leg for metrics, it is counted locally and added once
+        int expandedNodes = 0;
+        int pushes = 1;
+        int neighborChecks = 0;
+        int detections = 0;
+        boolean isCaptured = false;
+        try {
+            while (!open.isEmpty()) {
+                int current = open.poll();
+                arena.markVisited(current);
+                int currentX = current / sizeOfGrid;
+                int currentY = current % sizeOfGrid;
+
+                mode.detectDangerNodes(board, currentX, currentY, detectedDangerNodes);
+                detections++;
+
+                if (!board.isSafe(current, isInvisible)) {
+                    if (!detectedDangerNodes.contains(current)) {
+                        isCaptured = true;
+                        throw new HarryIsCapturedException();
+                    }
+                    continue;
                 }
-            }
-            open.remove(current);
-            closed.add(current);
-
-            detectedDangerNodes.addAll(mode.detectDangerNodes(board, startPosition));
 
-            if (isSafe(board, current, isInvisible)) {
-                if (board.getCell(current).getTypesOfNode().contains(subjectToFind)) {
-                    while (cellsInfo.get(current.getX()).get(current.getY()).getPrevious() != null) {
-                        path.add(current);
-                        current = cellsInfo.get(current.getX()).get(current.getY()).getPrevious();
-                    }
-                    path.add(current);
-                    Collections.reverse(path);
-                    return path;
+                if (board.contains(current, subjectToFind)) {
+                    return restorePath(board, previous, current);
                 }
 
-                ArrayList<Coordinate> neighbors = getNeighbors(current, board.size());
-                for (Coordinate neighbor : neighbors) {
-                    if (closed.contains(neighbor)) {
+                expandedNodes++;
+                for (int delta : neighbors.getDeltas(currentX, currentY)) {
+                    int neighbor = current + delta;
+                    neighborChecks++;
+                    if (arena.isVisited(neighbor)) {
                         continue;
                     }
 
+                    int tentativeG = g[current] + 1;
                     if (open.contains(neighbor)) {
-                        NodeForAStar neighborNode = cellsInfo.get(open.get(open.indexOf(neighbor)).getX()).get(open.get(open.indexOf(neighbor)).getY());
-
-                        if (cellsInfo.get(current.getX()).get(current.getY()).getG() + 1 < neighborNode.getG()) {
-                            neighborNode.setG(cellsInfo.get(current.getX()).get(current.getY()).getG() + 1);
-                            neighborNode.setPrevious(current);
+                        if (tentativeG < g[neighbor]) {
+                            g[neighbor] = tentativeG;
+                            previous[neighbor] = current;
+                            open.decreaseKey(neighbor, tentativeG + getHeuristic(neighbor / sizeOfGrid, neighbor % sizeOfGrid, target));
                         }
                     } else {
-                        NodeForAStar neighborNode = cellsInfo.get(neighbor.getX()).get(neighbor.getY());
-                        neighborNode.setG(cellsInfo.get(neighbor.getX()).get(neighbor.getY()).getG() + 1);
-                        neighborNode.setH(getHeuristic(neighbor, board.getPositionOfSubject(subjectToFind)));
-                        neighborNode.setPrevious(current);
-                        open.add(neighbor);
+                        g[neighbor] = tentativeG;
+                        previous[neighbor] = current;
+                        open.push(neighbor, tentativeG + getHeuristic(neighbor / sizeOfGrid, neighbor % sizeOfGrid, target));
+                        pushes++;
                     }
                 }
-            } else {
-                if (!detectedDangerNodes.contains(current)) {
-                    IO.printString("The Harry is captured by a guard!");
-                    System.exit(0);
-                }
+            }
+            return null;
+        } finally {
+            if (metrics != null) {
+                metrics.recordLeg(expandedNodes, pushes, neighborChecks, detections, isCaptured);
             }
         }
-        return null;
     }
 
-
-    private double getHeuristic(Coordinate startPosition, Coordinate endPosition) {
-        return Math.sqrt(Math.pow(startPosition.getX() - endPosition.getX(), 2) + Math.pow(startPosition.getY() - endPosition.getY(), 2));
+    /**
+     * Euclidean distance from the cell to the end position
+     */
+    private double getHeuristic(int x, int y, Coordinate endPosition) {
+        return Math.sqrt(Math.pow(x - endPosition.getX(), 2) + Math.pow(y - endPosition.getY(), 2));
     }
 }
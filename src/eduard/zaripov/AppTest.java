@@ -2,9 +2,20 @@ package eduard.zaripov;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
-import org.opentest4j.AssertionFailedError;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static java.time.Duration.ofMinutes;
 import static java.time.Duration.ofSeconds;
@@ -54,11 +65,46 @@ public class AppTest {
         ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[2,0] [6,3] [5,7] [8,8] [0,8] [7,7]");
         Solution solution = new Solution(inputCoordinates, new Perception(1));
 
-        assertThrows(AssertionFailedError.class, () -> {
-            assertTimeoutPreemptively(ofSeconds(4), () -> {
-                solution.findPath(new Backtracking(true));
-            });
-        });
+        ArrayList<ArrayList<Coordinate>> path2 = assertTimeoutPreemptively(ofSeconds(4), () -> solution.findPath(new Backtracking(true)));
+        ArrayList<ArrayList<Coordinate>> pathBFS = solution.findPath(new BFS());
+
+        int length = 0;
+        for (ArrayList<Coordinate> currentPath : path2) {
+            length += currentPath.size();
+            length--;
+        }
+        int lengthBFS = 0;
+        for (ArrayList<Coordinate> currentPath : pathBFS) {
+            lengthBFS += currentPath.size();
+            lengthBFS--;
+        }
+
+        assertEquals(17, length,
+                "Wrong!");
+        assertEquals(lengthBFS, length,
+                "Wrong!");
+    }
+
+    @Test
+    void testParallelBacktracking() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[2,0] [6,3] [5,7] [8,8] [0,8] [7,7]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+
+        ArrayList<ArrayList<Coordinate>> path2 = assertTimeoutPreemptively(ofSeconds(4), () -> solution.findPath(new ParallelBacktracking()));
+
+        assertEquals(17, Main.calculatePathLength(path2),
+                "Wrong!");
+    }
+
+    @Test
+    void testIterativeBacktracking() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+
+        assertEquals(solution.findPath(new Backtracking(true)), solution.findPath(new IterativeBacktracking(true)),
+                "Wrong!");
+        assertEquals(solution.findPath(new Backtracking(false)), solution.findPath(new IterativeBacktracking(false)),
+                "Wrong!");
     }
 
     @Test
@@ -101,6 +147,139 @@ public class AppTest {
 
     }
 
+    @Test
+    void testAStar1() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        ArrayList<ArrayList<Coordinate>> path2 = solution.findPath(new AStar());
+
+        assertEquals(16, Main.calculatePathLength(path2),
+                "Wrong!");
+    }
+
+    @Test
+    void testDialAStar() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        ArrayList<ArrayList<Coordinate>> pathBFS = solution.findPath(new BFS());
+        ArrayList<ArrayList<Coordinate>> pathDialAStar = solution.findPath(new DialAStar());
+
+        assertEquals(Main.calculatePathLength(pathBFS), Main.calculatePathLength(pathDialAStar),
+                "Wrong!");
+    }
+
+    @Test
+    void testDialAStarExpandsOnlyThePath() throws IllegalInputCoordinate, HarryIsCapturedException {
+        Board board = new Board(64, 2, 1, new Coordinate(0, 0), new Coordinate(60, 2), new Coordinate(2, 60),
+                new Coordinate(50, 63), new Coordinate(63, 0), new Coordinate(0, 63));
+        DialAStar dialAStar = new DialAStar();
+        SearchMetrics metrics = new SearchMetrics();
+        dialAStar.setMetrics(metrics);
+        for (int i = 0; i < 2; i++) {
+            ArrayList<Coordinate> path = dialAStar.findPath(board, new Coordinate(0, 0), TypeOfCell.BOOK, false, new Perception(1), true);
+            assertEquals(64, path.size());
+        }
+        // Without dangers on the way only cells of the path are expanded, the queue is cleared between calls
+        assertEquals(2 * 63, (int) metrics.getExpandedNodes());
+    }
+
+    @Test
+    void testJumpPointSearch1() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        ArrayList<ArrayList<Coordinate>> path2 = solution.findPath(new JumpPointSearch());
+
+        assertEquals(16, Main.calculatePathLength(path2),
+                "Wrong!");
+        for (ArrayList<Coordinate> currentPath : path2) {
+            for (int i = 1; i < currentPath.size(); i++) {
+                int stepX = Math.abs(currentPath.get(i).getX() - currentPath.get(i - 1).getX());
+                int stepY = Math.abs(currentPath.get(i).getY() - currentPath.get(i - 1).getY());
+                assertEquals(1, Math.max(stepX, stepY),
+                        "Wrong!");
+            }
+        }
+    }
+
+    @Test
+    void testBidirectionalBFS() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [5,2] [1,5] [8,1] [2,1] [2,2]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+
+        assertEquals(Main.calculatePathLength(solution.findPath(new BFS())), Main.calculatePathLength(solution.findPath(new BidirectionalBFS())),
+                "Wrong!");
+
+        // Harry starts on the cloak and the book is in the danger zone, he should detect it on the backward part
+        solution = new Solution(IO.parseCoordinates("[1,1] [4,4] [8,8] [6,5] [1,1] [0,8]"), new Perception(1));
+        assertEquals(Main.calculatePathLength(solution.findPath(new BFS())), Main.calculatePathLength(solution.findPath(new BidirectionalBFS())),
+                "Wrong!");
+    }
+
+    @Test
+    void testDistanceFields() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[2,0] [6,3] [5,7] [8,8] [0,8] [7,7]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+
+        assertEquals(Main.calculatePathLength(solution.findPath(new BFS())), Main.calculatePathLength(solution.findPathByDistanceFields()),
+                "Wrong!");
+    }
+
+    @Test
+    void testDStarLite() throws IllegalInputCoordinate, HarryIsCapturedException {
+        Board board = new Board(9, 2, 1, new Coordinate(0, 0), new Coordinate(4, 2), new Coordinate(2, 7),
+                new Coordinate(7, 4), new Coordinate(0, 8), new Coordinate(1, 4));
+        DStarLite dStarLite = new DStarLite();
+        // Harry knows the whole board, so he walks by the shortest path
+        for (int cell = 0; cell < board.size() * board.size(); cell++) {
+            dStarLite.getDetectedDangers().add(cell);
+        }
+
+        ArrayList<Coordinate> pathToBook = dStarLite.findPath(board, new Coordinate(0, 0), TypeOfCell.BOOK, false, new Perception(1), false);
+        ArrayList<Coordinate> pathFromCloak = dStarLite.findPath(board, new Coordinate(0, 8), TypeOfCell.BOOK, true, new Perception(1), false);
+
+        assertEquals(new BFS().findPath(board, new Coordinate(0, 0), TypeOfCell.BOOK, false, new Perception(1), true).size(), pathToBook.size(),
+                "Wrong!");
+        assertEquals(new BFS().findPath(board, new Coordinate(0, 8), TypeOfCell.BOOK, true, new Perception(1), true).size(), pathFromCloak.size(),
+                "Wrong!");
+    }
+
+    @Test
+    void testDStarLiteSubjectInDanger() throws IllegalInputCoordinate {
+        // Harry is spawned with the cloak, so the book can be in the zone of Filch. In the scenario BOOK -> EXIT he
+        // goes to the book without the cloak and the book is the unsafe cell which he still can step into
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [8,8] [4,4] [0,0] [8,0]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        ArrayList<ArrayList<Coordinate>> pathDStarLite = assertTimeoutPreemptively(ofSeconds(4), () -> solution.findPath(new DStarLite()));
+
+        assertEquals(Main.calculatePathLength(solution.findPath(new BFS())), Main.calculatePathLength(pathDStarLite),
+                "Wrong!");
+        assertFalse(pathDStarLite.isEmpty());
+    }
+
+    @Test
+    void testParallelScenarios() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        ArrayList<ArrayList<Coordinate>> path2 = solution.findPath(BFS::new, executor);
+        executor.shutdown();
+
+        assertEquals(solution.findPath(new BFS()), path2);
+    }
+
+    @Test
+    void testLegCache() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        ArrayList<ArrayList<Coordinate>> path1 = solution.findPath(new BFS());
+        long misses = solution.getLegCache().getMisses();
+        ArrayList<ArrayList<Coordinate>> path2 = solution.findPath(new BFS());
+
+        assertEquals(path1, path2);
+        assertEquals(misses, solution.getLegCache().getMisses());
+        assertTrue(solution.getLegCache().getHits() > 0);
+    }
+
     @Test
     void testMode2() throws IllegalInputCoordinate {
         ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[6,6] [4,2] [2,7] [5,5] [7,6] [7,0]");
@@ -110,4 +289,224 @@ public class AppTest {
         assertEquals(path2.size(), 0);
     }
 
+    @Test
+    void testPackedBoard() throws IllegalInputCoordinate, HarryIsCapturedException {
+        Board board = new Board(9, 2, 1, new Coordinate(0, 0), new Coordinate(4, 2), new Coordinate(2, 7),
+                new Coordinate(7, 4), new Coordinate(0, 8), new Coordinate(1, 4));
+
+        assertTrue(board.isInspector(board.index(4, 2)));
+        assertTrue(board.isDangerOrInspector(board.index(6, 4)));
+        assertTrue(board.isSafe(board.index(6, 4), true));
+        assertFalse(board.isSafe(board.index(2, 7), true));
+        assertTrue(board.contains(new Coordinate(7, 4), TypeOfCell.BOOK));
+        assertEquals("E", board.getCell(new Coordinate(1, 4)).toString());
+        assertThrows(IllegalInputCoordinate.class, () -> new Board(9, 2, 1, new Coordinate(0, 0), new Coordinate(4, 2),
+                new Coordinate(2, 9), new Coordinate(7, 4), new Coordinate(0, 8), new Coordinate(1, 4)));
+    }
+
+    @Test
+    void testManyInspectors() throws IllegalInputCoordinate, HarryIsCapturedException {
+        ArrayList<Inspector> inspectors = new ArrayList<>();
+        inspectors.add(new Inspector(new Coordinate(10, 10), 3));
+        inspectors.add(new Inspector(new Coordinate(12, 12), 0));
+        inspectors.add(new Inspector(new Coordinate(30, 5), 10));
+        Board board = new Board(40, new Coordinate(0, 0), new Coordinate(39, 39), new Coordinate(0, 39), new Coordinate(20, 39), inspectors);
+
+        assertTrue(board.isInspector(board.index(12, 12)));
+        assertTrue(board.isDangerOrInspector(board.index(7, 13)));
+        assertFalse(board.isDangerOrInspector(board.index(6, 10)));
+        assertTrue(board.isDangerOrInspector(board.index(39, 15)));
+        assertFalse(board.isDangerOrInspector(board.index(39, 16)));
+
+        inspectors.add(new Inspector(new Coordinate(35, 35), 4));
+        assertThrows(IllegalInputCoordinate.class, () -> new Board(40, new Coordinate(0, 0), new Coordinate(39, 39), new Coordinate(0, 39), new Coordinate(20, 39), inspectors));
+    }
+
+    @Test
+    void testWideVision() throws IllegalInputCoordinate, HarryIsCapturedException {
+        ArrayList<Inspector> inspectors = new ArrayList<>();
+        inspectors.add(new Inspector(new Coordinate(50, 70), 2));
+        Board board = new Board(100, new Coordinate(0, 0), new Coordinate(99, 99), new Coordinate(0, 99), new Coordinate(99, 0), inspectors);
+        Perception perception = new Perception(3);
+
+        int[] buffer = new int[perception.getMaxNumberOfDetected()];
+        assertEquals(20, buffer.length);
+        assertEquals(5, perception.detectDangerNodes(board, 50, 66, buffer));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(69, board.getY(buffer[i]));
+        }
+        DetectedDangers detected = new DetectedDangers();
+        perception.detectDangerNodes(board, 53, 74, detected);
+        assertEquals(3, detected.size());
+        assertThrows(IllegalArgumentException.class, () -> new Perception(0));
+    }
+
+    @Test
+    void testVisionShapes() throws IllegalInputCoordinate, HarryIsCapturedException {
+        assertEquals(new Perception(1), new Perception(VisionMask.of(VisionMask.Shape.SQUARE, 1, true)));
+        assertSame(VisionMask.forRadius(3), new Perception(3).getMask());
+        assertEquals(12, VisionMask.of(VisionMask.Shape.DIAMOND, 2, false).getNumberOfCells());
+        assertEquals(24, VisionMask.of(VisionMask.Shape.SQUARE, 2, false).getNumberOfCells());
+
+        // Harry sees only the row of 5 cells two steps ahead of him
+        ArrayList<Coordinate> offsets = new ArrayList<>();
+        for (int j = 2; j >= -2; j--) {
+            offsets.add(new Coordinate(2, j));
+        }
+        VisionMask mask = VisionMask.fromOffsets(offsets, false);
+        assertEquals(1, mask.getNumberOfSegments());
+        assertSame(mask, VisionMask.fromOffsets(new ArrayList<>(offsets.subList(0, 5)), false));
+        assertNotEquals(new Perception(mask), new Perception(VisionMask.fromOffsets(offsets, true)));
+
+        ArrayList<Inspector> inspectors = new ArrayList<>();
+        inspectors.add(new Inspector(new Coordinate(6, 4), 1));
+        Board board = new Board(9, new Coordinate(0, 0), new Coordinate(8, 8), new Coordinate(0, 8), new Coordinate(8, 0), inspectors);
+        Perception perception = new Perception(mask);
+        assertEquals(2, perception.getRadius());
+        int[] buffer = new int[perception.getMaxNumberOfDetected()];
+        // Row 5 has 3 dangers, row 6 is not seen from row 2
+        assertEquals(3, perception.detectDangerNodes(board, 3, 4, buffer));
+        assertEquals(0, perception.detectDangerNodes(board, 2, 4, buffer));
+    }
+
+    @Test
+    void testBatchSolver() throws IllegalInputCoordinate {
+        ArrayList<ArrayList<Coordinate>> inputs = new ArrayList<>();
+        inputs.add(IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]"));
+        inputs.add(IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [7,4]"));
+        inputs.add(IO.parseCoordinates("[4,3] [4,2] [2,7] [7,4] [0,8] [1,4]"));
+        inputs.add(IO.parseCoordinates("[6,6] [4,2] [2,7] [5,5] [7,6] [7,0]"));
+        inputs.add(IO.parseCoordinates("[8,8] [4,2] [2,7] [7,4] [0,8] [1,4]"));
+
+        ArrayList<BatchSolver.Result> results;
+        try (BatchSolver batchSolver = new BatchSolver(AStar::new, new Perception(1), 2)) {
+            results = batchSolver.solve(inputs);
+        }
+
+        assertEquals(inputs.size(), results.size());
+        assertNotNull(results.get(1).getError());
+        assertTrue(results.get(2).isCaptured());
+        for (int i : new int[]{0, 3, 4}) {
+            Solution solution = new Solution(inputs.get(i), new Perception(1));
+            assertEquals(Main.calculatePathLength(solution.findPath(new AStar())), Main.calculatePathLength(results.get(i).getPath()),
+                    "Wrong!");
+        }
+    }
+
+    @Test
+    void testScenarioFiles() throws IOException {
+        String text = "# inputs\n[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]\n\n[6,6] [4,2] [2,7] [5,5] [7,6] [7,0] 2";
+        ArrayList<ArrayList<Coordinate>> inputs = new ArrayList<>();
+        ArrayList<Integer> radii = new ArrayList<>();
+        Path file = Files.createTempFile("inputs", ".bin");
+        try {
+            try (ScenarioFile.Writer writer = new ScenarioFile.Writer(file)) {
+                assertEquals(2, ScenarioParser.parse(new ByteArrayInputStream(text.getBytes()), 1, writer));
+                // Wrong records are not written even partly
+                assertThrows(IllegalArgumentException.class, () -> writer.visit(new int[]{0, 0, 4, 2, 2, 70000, 7, 4, 0, 8, 1, 4}, 1));
+                assertThrows(IllegalArgumentException.class, () -> writer.visit(new int[]{0, 0, 4, 2, 2, 7, 7, 4, 0, 8, 1, 4}, 300));
+            }
+            assertEquals(2, ScenarioFile.read(file, (coordinates, radius) -> {
+                inputs.add(ScenarioVisitor.toCoordinates(coordinates));
+                radii.add(radius);
+            }));
+        } finally {
+            Files.delete(file);
+        }
+
+        assertEquals(IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]"), inputs.get(0));
+        assertEquals(IO.parseCoordinates("[6,6] [4,2] [2,7] [5,5] [7,6] [7,0]"), inputs.get(1));
+        assertEquals(1, (int) radii.get(0));
+        assertEquals(2, (int) radii.get(1));
+        assertThrows(NumberFormatException.class, () -> ScenarioParser.parse(new ByteArrayInputStream("[0,0] [4,2]".getBytes()), 1, (coordinates, radius) -> {
+        }));
+    }
+
+    @Test
+    void testHistogram() {
+        Histogram first = new Histogram();
+        Histogram second = new Histogram();
+        for (int value = 1; value <= 100000; value++) {
+            (value % 2 == 0 ? first : second).record(value);
+        }
+        first.add(second);
+
+        assertEquals(100000, first.getCount());
+        assertEquals(50000.5, first.getMean(), 1e-9);
+        assertEquals(100000, first.getMax());
+        assertEquals(100, first.getValueAtPercentile(0.1));
+        assertEquals(50000, first.getValueAtPercentile(50), 50000 / 64.0);
+        assertEquals(99000, first.getValueAtPercentile(99), 99000 / 64.0);
+        assertTrue(first.getValueAtPercentile(99) >= 99000);
+    }
+
+    @Test
+    void testSearchMetrics() throws IllegalInputCoordinate {
+        ArrayList<Coordinate> inputCoordinates = IO.parseCoordinates("[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]");
+        Solution solution = new Solution(inputCoordinates, new Perception(1));
+        SearchMetrics metrics = new SearchMetrics();
+        BFS bfs = new BFS();
+        bfs.setMetrics(metrics);
+        solution.setMetrics(metrics);
+        solution.findPath(bfs);
+
+        assertEquals(3, metrics.getScenariosWithPath() + metrics.getScenariosWithoutPath() + metrics.getCapturedScenarios());
+        assertEquals(solution.getLegCache().getMisses(), metrics.getLegs());
+        assertTrue(metrics.getExpandedNodes() > 0);
+        assertTrue(metrics.getNeighborChecks() >= metrics.getExpandedNodes());
+        assertTrue(metrics.export().contains("search_legs_total " + metrics.getLegs() + "\n"));
+    }
+
+    @Test
+    void testSolverServer() throws IOException, IllegalInputCoordinate {
+        String input = "[0,0] [4,2] [2,7] [7,4] [0,8] [1,4]";
+        String expectedAStar = SolverServer.toResponse(new Solution(IO.parseCoordinates(input), new Perception(1)).findPath(new AStar()));
+        String expectedBFS = SolverServer.toResponse(new Solution(IO.parseCoordinates(input), new Perception(2)).findPath(new BFS()));
+
+        try (SolverServer server = new SolverServer(0, 2)) {
+            server.start();
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                 BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                // All requests are sent before reading responses
+                OutputStream outputStream = socket.getOutputStream();
+                outputStream.write((input + " astar\n" + "\n" + input + " unknown\n" + "[0,0] [4,2]\n" + input + " bfs 2\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                outputStream.flush();
+
+                assertEquals(expectedAStar, reader.readLine());
+                assertEquals("ERROR Unknown algorithm unknown", reader.readLine());
+                assertTrue(reader.readLine().startsWith("ERROR"));
+                assertEquals(expectedBFS, reader.readLine());
+            }
+        }
+        assertTrue(expectedAStar.startsWith("OK "));
+        assertTrue(expectedBFS.startsWith("OK "));
+    }
+
+    @Test
+    void testBoardGenerator() throws IllegalInputCoordinate, HarryIsCapturedException {
+        BoardGenerator generator = new BoardGenerator(42);
+        BoardGenerator sameGenerator = new BoardGenerator(42);
+        // Split changes the random of the generator, so it is split from the third one
+        BoardGenerator otherGenerator = new BoardGenerator(42).split();
+        int[] coordinates = new int[generator.getNumberOfValues()];
+        boolean isSameAsSplit = true;
+        for (int i = 0; i < 1000; i++) {
+            ArrayList<Coordinate> inputCoordinates = generator.nextInputCoordinates();
+            assertEquals(inputCoordinates, sameGenerator.nextInputCoordinates());
+            isSameAsSplit &= inputCoordinates.equals(otherGenerator.nextInputCoordinates());
+            // Throws if the input is illegal
+            Solution.createBoard(inputCoordinates);
+            generator.next(coordinates);
+            sameGenerator.next(coordinates);
+            otherGenerator.next(coordinates);
+        }
+        assertFalse(isSameAsSplit);
+
+        BoardGenerator bigGenerator = new BoardGenerator(7, 30, 3, 3, 1, 0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(30, bigGenerator.nextBoard().size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BoardGenerator(1, 5, 5).next(new int[10]));
+    }
 }
@@ -1,17 +1,33 @@
 package eduard.zaripov;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
 
 /**
  * Algorithm for finding the shortest path from coordinate to subject using Breadth-First search algorithm
+ * <p>It works with cell indices and keeps the queue, references to the previous cells and visited cells in
+ * {@link SearchArena} of the current thread. Neighbors are taken from {@link NeighborTable}, so the search doesn't
+ * allocate anything except the result path</p>
  */
 public class BFS implements FindPathInterface {
     /**
      * For save detected nodes if we have complex path. For example: start -> book -> exit
      */
-    private ArrayList<Coordinate> detectedDangerNodes = new ArrayList<>();
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+
+    /**
+     * Counters of the work or null if they are not needed
+     */
+    private SearchMetrics metrics;
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
 
     /**
      * Iterative algorithm that use queue.
@@ -27,56 +43,71 @@ public class BFS implements FindPathInterface {
      */
     @Override
     public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
-        Queue<Coordinate> queue = new LinkedList<>();
         if (updateDetection) {
-            detectedDangerNodes = new ArrayList<>();
+            detectedDangerNodes.clear();
         }
+        int sizeOfGrid = board.size();
+        NeighborTable neighbors = NeighborTable.forSize(sizeOfGrid);
+        int numberOfCells = sizeOfGrid * sizeOfGrid;
+        SearchArena arena = SearchArena.current();
+        arena.prepare(numberOfCells);
+        int[] queue = arena.getQueue(numberOfCells);
+        int[] parent = arena.getParent();
+        int head = 0;
+        int tail = 0;
 
-        ArrayList<ArrayList<Node>> cellsInfo = new ArrayList<>();
-        for (int row = 0; row < board.size(); row++) {
-            cellsInfo.add(new ArrayList<>());
-            for (int column = 0; column < board.size(); column++) {
-                cellsInfo.get(row).add(new Node());
-            }
-        }
-
-        queue.add(startPosition);
-        cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setPrevious(null);
-        cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setIsPath(true);
-
-        while (!queue.isEmpty()) {
-            Coordinate current = queue.remove();
-
-            if (board.getCell(current).getTypesOfNode().contains(subjectToFind)) {
-                return restorePath(cellsInfo, current);
-            }
+        int start = board.index(startPosition);
+        queue[tail++] = start;
+        parent[start] = -1;
+        arena.markVisited(start);
 
+        // Work of the leg for metrics, it is counted locally and added once
+        int expandedNodes = 0;
+        int neighborChecks = 0;
+        int detections = 0;
+        boolean isCaptured = false;
+        try {
+            while (head < tail) {
+                int current = queue[head++];
 
-            detectedDangerNodes.addAll(mode.detectDangerNodes(board, current));
+                if (board.contains(current, subjectToFind)) {
+                    return restorePath(board, parent, current);
+                }
 
+                int currentX = current / sizeOfGrid;
+                int currentY = current % sizeOfGrid;
+                mode.detectDangerNodes(board, currentX, currentY, detectedDangerNodes);
+                detections++;
 
-            if (!isSafe(board, current, isInvisible)) {
-                if (!detectedDangerNodes.contains(current)) {
-                    throw new HarryIsCapturedException();
+                if (!board.isSafe(current, isInvisible)) {
+                    if (!detectedDangerNodes.contains(current)) {
+                        isCaptured = true;
+                        throw new HarryIsCapturedException();
+                    }
+                    continue;
                 }
-                continue;
-            }
 
-            ArrayList<Coordinate> neighbors = getNeighbors(current, board.size());
-            for (Coordinate adjacentCell : neighbors) {
-                Node adjacentNode = cellsInfo.get(adjacentCell.getX()).get(adjacentCell.getY());
-                if (!adjacentNode.isPath()) {
-                    queue.add(adjacentCell);
-                    adjacentNode.setIsPath(true);
-                    adjacentNode.setPrevious(current);
+                expandedNodes++;
+                for (int delta : neighbors.getDeltas(currentX, currentY)) {
+                    int adjacentCell = current + delta;
+                    neighborChecks++;
+                    if (!arena.isVisited(adjacentCell)) {
+                        queue[tail++] = adjacentCell;
+                        arena.markVisited(adjacentCell);
+                        parent[adjacentCell] = current;
 
-                    if (board.getCell(adjacentCell).getTypesOfNode().contains(subjectToFind)) {
-                        return restorePath(cellsInfo, adjacentCell);
+                        if (board.contains(adjacentCell, subjectToFind)) {
+                            return restorePath(board, parent, adjacentCell);
+                        }
                     }
                 }
             }
+            return null;
+        } finally {
+            if (metrics != null) {
+                metrics.recordLeg(expandedNodes, tail, neighborChecks, detections, isCaptured);
+            }
         }
-        return null;
     }
 
 }
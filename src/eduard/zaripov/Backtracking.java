@@ -1,7 +1,7 @@
 package eduard.zaripov;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Arrays;
 
 /**
  * Recursive algorithm for finding path from coordinate to type of node(For example: from (0,0) to book)
@@ -9,6 +9,10 @@ import java.util.LinkedList;
  * <p>* It checks if the node is final. If it is, return true</p>
  * <p>* Then it take neighbor coordinate </p>
  * <p>* If there is no accessible neighbor coordinate, returns back to previous step</p>
+ * <p>If the shortest path is needed, it is branch and bound search. The branch is cut if even the straight path
+ * from the current cell to the subject (Chebyshev distance, each step can be diagonal) is not shorter than the found
+ * path, or if the cell was already reached by a path which is not longer than the current one. Both bounds never
+ * cut the shortest path, so the result is the same as of the full search</p>
  */
 public class Backtracking implements FindPathInterface {
     /**
@@ -19,17 +23,52 @@ public class Backtracking implements FindPathInterface {
     /**
      * For save detected nodes if we have complex path. For example: start -> book -> exit
      */
-    private ArrayList<Coordinate> detectedDangerNodes = new ArrayList<>();
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
     /**
      * Min length founded length path
      */
     private int minLengthPath = Integer.MAX_VALUE;
     private ArrayList<Coordinate> minPath = new ArrayList<>();
+    /**
+     * The least depth of recursion on which each cell was reached. Only for the shortest path
+     */
+    private int[] minDepth;
+    /**
+     * Coordinate of the subject to find
+     */
+    private int targetX;
+    private int targetY;
+    /**
+     * Counters of the work or null if they are not needed
+     */
+    private SearchMetrics metrics;
+    /**
+     * Work of the current leg for metrics, it is added to them once at the end of the leg
+     */
+    private long expandedNodes;
+    private long calls;
+    private long neighborChecks;
+    private long detections;
 
     public Backtracking(boolean isTheShortestPathNeeded) {
         this.isTheShortestPathNeeded = isTheShortestPathNeeded;
     }
 
+    @Override
+    public String getName() {
+        return isTheShortestPathNeeded ? "Backtracking(shortest)" : "Backtracking(first)";
+    }
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Initialize all needed fields and run recursive algorithm
      *
@@ -44,23 +83,38 @@ public class Backtracking implements FindPathInterface {
      */
     @Override
     public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
-        ArrayList<ArrayList<Node>> cellsInfo = new ArrayList<>();
         if (updateDetection) {
-            detectedDangerNodes = new ArrayList<>();
+            detectedDangerNodes.clear();
         }
-        for (int row = 0; row < board.size(); row++) {
-            cellsInfo.add(new ArrayList<>());
-            for (int column = 0; column < board.size(); column++) {
-                cellsInfo.get(row).add(new Node());
-            }
+        int numberOfCells = board.size() * board.size();
+        int[] previous = new int[numberOfCells];
+        Arrays.fill(previous, -1);
+        boolean[] isPath = new boolean[numberOfCells];
+        if (isTheShortestPathNeeded) {
+            minDepth = new int[numberOfCells];
+            Arrays.fill(minDepth, Integer.MAX_VALUE);
         }
+        targetX = board.getPositionOfSubject(subjectToFind).getX();
+        targetY = board.getPositionOfSubject(subjectToFind).getY();
 
         minLengthPath = Integer.MAX_VALUE;
         minPath.clear();
+        expandedNodes = 0;
+        calls = 0;
+        neighborChecks = 0;
+        detections = 0;
+        boolean isCaptured = false;
         try {
-            findPathBacktrackingRecursive(0, board, cellsInfo, startPosition, subjectToFind, isInvisible, mode, detectedDangerNodes);
+            findPathBacktrackingRecursive(0, board, NeighborTable.forSize(board.size()), previous, isPath, board.index(startPosition), subjectToFind, isInvisible, mode, detectedDangerNodes);
         } catch (InterruptedException e) {
             return new ArrayList<>(minPath);
+        } catch (HarryIsCapturedException e) {
+            isCaptured = true;
+            throw e;
+        } finally {
+            if (metrics != null) {
+                metrics.recordLeg(expandedNodes, calls, neighborChecks, detections, isCaptured);
+            }
         }
         if (minPath.size() == 0) {
             return null;
@@ -73,7 +127,10 @@ public class Backtracking implements FindPathInterface {
      *
      * @param currentLength       the depth of recursive which is also current length of path
      * @param board               all info about cells in coordinates
-     * @param cellsInfo           all info node in cells
+     * @param neighbors           neighbors of cells of the board
+     * @param previous            index of the previous cell in path for each cell, -1 if there is no previous cell
+     * @param isPath              flags whether the cell is in the current path
+     * @param cell                index of the current cell
      * @param isInvisible         is Harry have a cloak
      * @param mode                perception mode of Harry
      * @param detectedDangerNodes current detected danger nodes
@@ -81,55 +138,64 @@ public class Backtracking implements FindPathInterface {
      * @throws HarryIsCapturedException if Harry lose
      * @throws InterruptedException     if timeout of backtracking working
      */
-    private boolean findPathBacktrackingRecursive(int currentLength, Board board, ArrayList<ArrayList<Node>> cellsInfo, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, ArrayList<Coordinate> detectedDangerNodes) throws HarryIsCapturedException, InterruptedException {
+    private boolean findPathBacktrackingRecursive(int currentLength, Board board, NeighborTable neighbors, int[] previous, boolean[] isPath, int cell, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, DetectedDangers detectedDangerNodes) throws HarryIsCapturedException, InterruptedException {
         // It is needed for limit time of backtracking working
         if (Thread.currentThread().isInterrupted()) {
             throw new InterruptedException("Thread interrupted");
         }
+        calls++;
 
-        if (board.getCell(startPosition).getTypesOfNode().contains(subjectToFind)) {
-            if (isSafe(board, startPosition, isInvisible) && currentLength < minLengthPath) {
-                cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setIsPath(true);
+        if (board.contains(cell, subjectToFind)) {
+            if (board.isSafe(cell, isInvisible) && currentLength < minLengthPath) {
                 minLengthPath = currentLength;
-                minPath = restorePath(cellsInfo, startPosition);
-
-                cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setIsPath(false);
-                cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setPrevious(null);
+                minPath = restorePath(board, previous, cell);
+                previous[cell] = -1;
 
                 return true;
             }
         } else {
-            if (isSafe(board, startPosition, isInvisible)) {
-                detectedDangerNodes.addAll(mode.detectDangerNodes(board, startPosition));
+            if (board.isSafe(cell, isInvisible)) {
+                int x = board.getX(cell);
+                int y = board.getY(cell);
+                mode.detectDangerNodes(board, x, y, detectedDangerNodes);
+                detections++;
 
-                Node nodeInStartPosition = cellsInfo.get(startPosition.getX()).get(startPosition.getY());
-                if (nodeInStartPosition.isPath()) {
+                if (isPath[cell]) {
                     return false;
                 }
 
-                nodeInStartPosition.setIsPath(true);
+                if (isTheShortestPathNeeded && !isWorthExploring(cell, x, y, currentLength)) {
+                    return false;
+                }
+
+                isPath[cell] = true;
                 currentLength++;
                 if (currentLength > minLengthPath) {
-                    cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setIsPath(false);
-                    cellsInfo.get(startPosition.getX()).get(startPosition.getY()).setPrevious(null);
+                    isPath[cell] = false;
+                    previous[cell] = -1;
                     return false;
                 }
 
-                LinkedList<Coordinate> nextCoordinatesToStep = getOperationSequence(startPosition, new Coordinate(0, 0), board.size());
-
-                for (Coordinate next : nextCoordinatesToStep) {
-                    if (!cellsInfo.get(next.getX()).get(next.getY()).isPath()) {
-                        cellsInfo.get(next.getX()).get(next.getY()).setPrevious(startPosition);
+                // The shortest path is searched towards the subject for finding the short path and bound earlier.
+                // Otherwise the end position is (0,0)
+                int endX = isTheShortestPathNeeded ? targetX : 0;
+                int endY = isTheShortestPathNeeded ? targetY : 0;
+                expandedNodes++;
+                for (int delta : neighbors.getDeltas(x, y, Integer.signum(endX - x), Integer.signum(endY - y))) {
+                    int next = cell + delta;
+                    neighborChecks++;
+                    if (!isPath[next]) {
+                        previous[next] = cell;
                     }
 
-                    if (findPathBacktrackingRecursive(currentLength, board, cellsInfo, next, subjectToFind, isInvisible, mode, detectedDangerNodes) && !isTheShortestPathNeeded) {
+                    if (findPathBacktrackingRecursive(currentLength, board, neighbors, previous, isPath, next, subjectToFind, isInvisible, mode, detectedDangerNodes) && !isTheShortestPathNeeded) {
                         return true;
                     }
                 }
-                nodeInStartPosition.setIsPath(false);
+                isPath[cell] = false;
             }
 
-            if (!detectedDangerNodes.contains(startPosition)) {
+            if (!detectedDangerNodes.contains(cell)) {
                 throw new HarryIsCapturedException();
             }
 
@@ -138,50 +204,19 @@ public class Backtracking implements FindPathInterface {
     }
 
     /**
-     * Finds sequence of neighbors node. If we know the end position, it can optimize backtracking
+     * Bounds of branch and bound search for the cell which is not the subject
      *
-     * @return list of neighbors node
+     * @param cell          index of the current cell
+     * @param currentLength length of path to the cell
+     * @return false if the path through the cell cannot be shorter than the found path
      */
-    private LinkedList<Coordinate> getOperationSequence(Coordinate startPosition, Coordinate endPosition, int sizeOfGrid) {
-        LinkedList<Coordinate> priority = new LinkedList<>();
-        LinkedList<Integer> priorityX = new LinkedList<>();
-        if (endPosition.getX() == startPosition.getX()) {
-            priorityX.add(0);
-            priorityX.add(+1);
-            priorityX.add(-1);
-        } else {
-            int sign = (endPosition.getX() - startPosition.getX()) / Math.abs(endPosition.getX() - startPosition.getX());
-            priorityX.add(sign);
-            priorityX.add(0);
-            priorityX.add(-sign);
+    private boolean isWorthExploring(int cell, int x, int y, int currentLength) {
+        if (currentLength >= minDepth[cell]) {
+            return false;
         }
+        minDepth[cell] = currentLength;
 
-        LinkedList<Integer> priorityY = new LinkedList<>();
-        if (endPosition.getY() == startPosition.getY()) {
-            priorityY.add(0);
-            priorityY.add(+1);
-            priorityY.add(-1);
-        } else {
-            int sign = (endPosition.getY() - startPosition.getY()) / Math.abs(endPosition.getY() - startPosition.getY());
-            priorityY.add(sign);
-            priorityY.add(0);
-            priorityY.add(-sign);
-        }
-
-        for (int operationX : priorityX) {
-            for (int operationY : priorityY) {
-                if (operationX == 0 && operationY == 0) {
-                    continue;
-                }
-                if (startPosition.getX() + operationX < 0 || startPosition.getX() + operationX >= sizeOfGrid ||
-                        startPosition.getY() + operationY < 0 || startPosition.getY() + operationY >= sizeOfGrid) {
-                    continue;
-                }
-                priority.add(new Coordinate(startPosition.getX() + operationX, startPosition.getY() + operationY));
-            }
-        }
-
-        return priority;
+        int distanceToTarget = Math.max(Math.abs(targetX - x), Math.abs(targetY - y));
+        return currentLength + distanceToTarget < minLengthPath;
     }
-
 }
@@ -0,0 +1,170 @@
+package eduard.zaripov;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Solves many inputs (six coordinates, see {@link IO#parseCoordinates(String)}) by several threads
+ * <p>Each thread has its own {@link Solution} with the board and its own search. For the next input the board is
+ * reset instead of creating the new one, and searches take their buffers from {@link SearchArena} of the thread, so
+ * solving many boards doesn't allocate the board and the buffers for each of them</p>
+ * <p>Results are returned in the order of inputs. Only a few inputs per thread are solved ahead of the first one
+ * which is not returned yet, so inputs can be read lazily from a big stream</p>
+ */
+public class BatchSolver implements AutoCloseable {
+    /**
+     * Number of inputs per thread which can be solved ahead of the result which is returned next
+     */
+    private static final int INPUTS_AHEAD_PER_THREAD = 4;
+
+    /**
+     * Result of one input
+     */
+    public static class Result {
+        private final ArrayList<ArrayList<Coordinate>> path;
+        private final boolean isCaptured;
+        private final IllegalInputCoordinate error;
+
+        Result(ArrayList<ArrayList<Coordinate>> path, boolean isCaptured, IllegalInputCoordinate error) {
+            this.path = path;
+            this.isCaptured = isCaptured;
+            this.error = error;
+        }
+
+        /**
+         * @return path divided in parts. It is empty if there is no path, Harry is captured or the input is illegal
+         */
+        public ArrayList<ArrayList<Coordinate>> getPath() {
+            return path;
+        }
+
+        /**
+         * @return true if Harry is spawned inside the danger zone or is captured by the search
+         */
+        public boolean isCaptured() {
+            return isCaptured;
+        }
+
+        /**
+         * @return why the input is illegal or null if it is correct
+         */
+        public IllegalInputCoordinate getError() {
+            return error;
+        }
+    }
+
+    /**
+     * Solution and search of one thread
+     */
+    private class Worker {
+        private final FindPathInterface typeOfSearch = searchFactory.get();
+        /**
+         * It is created by the first correct input of the thread
+         */
+        private Solution solution;
+
+        Result solve(ArrayList<Coordinate> inputCoordinates) {
+            try {
+                if (solution == null) {
+                    solution = new Solution(Solution.createBoard(inputCoordinates), mode);
+                } else {
+                    solution.reset(inputCoordinates);
+                }
+                return new Result(solution.findShortestPath(typeOfSearch), false, null);
+            } catch (HarryIsCapturedException e) {
+                return new Result(new ArrayList<>(), true, null);
+            } catch (IllegalInputCoordinate e) {
+                return new Result(new ArrayList<>(), false, e);
+            }
+        }
+    }
+
+    private final Supplier<? extends FindPathInterface> searchFactory;
+    private final Perception mode;
+    private final int numberOfThreads;
+    private final ExecutorService executor;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    /**
+     * @param searchFactory   creates search for each thread
+     * @param mode            Type of perception of harry vision
+     * @param numberOfThreads number of threads to solve inputs
+     */
+    public BatchSolver(Supplier<? extends FindPathInterface> searchFactory, Perception mode, int numberOfThreads) {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads should be at least 1");
+        }
+        this.searchFactory = searchFactory;
+        this.mode = mode;
+        this.numberOfThreads = numberOfThreads;
+        this.executor = Executors.newFixedThreadPool(numberOfThreads);
+    }
+
+    /**
+     * Solves all inputs
+     *
+     * @param inputs coordinates of each input
+     * @return results in the order of inputs. If the current thread is interrupted, only results before it
+     */
+    public ArrayList<Result> solve(Iterable<ArrayList<Coordinate>> inputs) {
+        ArrayList<Result> results = new ArrayList<>();
+        solve(inputs, results::add);
+        return results;
+    }
+
+    /**
+     * Same as {@link #solve(Iterable)} for the stream
+     */
+    public ArrayList<Result> solve(Stream<ArrayList<Coordinate>> inputs) {
+        return solve(inputs::iterator);
+    }
+
+    /**
+     * Solves all inputs and gives results to the consumer in the order of inputs as soon as they are ready
+     * <p>If the current thread is interrupted, inputs which are not given yet are cancelled</p>
+     *
+     * @param inputs   coordinates of each input
+     * @param consumer is called by the current thread for each result
+     */
+    public void solve(Iterable<ArrayList<Coordinate>> inputs, Consumer<Result> consumer) {
+        ArrayDeque<Future<Result>> futures = new ArrayDeque<>();
+        Iterator<ArrayList<Coordinate>> iterator = inputs.iterator();
+        try {
+            while (iterator.hasNext() || !futures.isEmpty()) {
+                while (iterator.hasNext() && futures.size() < numberOfThreads * INPUTS_AHEAD_PER_THREAD) {
+                    ArrayList<Coordinate> inputCoordinates = iterator.next();
+                    futures.add(executor.submit(() -> workers.get().solve(inputCoordinates)));
+                }
+                consumer.accept(futures.poll().get());
+            }
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void cancelAll(ArrayDeque<Future<Result>> futures) {
+        for (Future<Result> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Stops threads of the solver
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,173 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+
+/**
+ * Algorithm for finding the shortest path from coordinate to subject using Breadth-First search from both ends
+ * <p>The position of the subject is known, so one search goes from the start and another one goes back from the
+ * subject. Each step expands the whole layer of the smaller frontier. When a cell reached by one search is reached
+ * by another, the path through it is found. All meetings of the layer are checked and the shortest one is taken, so
+ * the path has the same length as of {@link BFS}. On the board without walls both searches explore squares with
+ * half of the distance instead of one square with the whole distance</p>
+ * <p>Only the forward search is Harry: it detects dangers from the cells it expands and Harry is captured if it
+ * expands the unsafe cell which is not detected. The backward search is a plan, it goes only through safe cells and
+ * doesn't detect anything. Harry finishes the layer of the meeting, so with radius 2 he can be captured in the cell
+ * which {@link BFS} doesn't reach. After the meeting Harry walks the rest of the path, so he detects dangers from
+ * the meeting cell and each cell of the backward part</p>
+ * <p>Each search takes its queue, parents and distances from {@link SearchArena} of the current thread: the forward
+ * one from the arena itself and the backward one from its second arena. A cell is reached by the search if it is
+ * visited in its arena</p>
+ */
+public class BidirectionalBFS implements FindPathInterface {
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    /**
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    @Override
+    public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        if (updateDetection) {
+            detectedDangerNodes.clear();
+        }
+        int sizeOfGrid = board.size();
+        int numberOfCells = sizeOfGrid * sizeOfGrid;
+        NeighborTable neighbors = NeighborTable.forSize(sizeOfGrid);
+
+        int start = board.index(startPosition);
+        int target = board.index(board.getPositionOfSubject(subjectToFind));
+        if (start == target) {
+            ArrayList<Coordinate> path = new ArrayList<>();
+            path.add(startPosition);
+            return path;
+        }
+
+        SearchArena forward = SearchArena.current();
+        SearchArena backward = forward.getSecondArena();
+        forward.prepare(numberOfCells);
+        backward.prepare(numberOfCells);
+        // Distance from the start (forward) or to the subject (backward), valid only for reached cells
+        int[] distanceForward = forward.getCosts(numberOfCells);
+        int[] distanceBackward = backward.getCosts(numberOfCells);
+        int[] parentForward = forward.getParent();
+        int[] parentBackward = backward.getParent();
+        int[] queueForward = forward.getQueue(numberOfCells);
+        int[] queueBackward = backward.getQueue(numberOfCells);
+        int headForward = 0;
+        int tailForward = 0;
+        int headBackward = 0;
+        int tailBackward = 0;
+
+        queueForward[tailForward++] = start;
+        forward.markVisited(start);
+        distanceForward[start] = 0;
+        parentForward[start] = -1;
+        queueBackward[tailBackward++] = target;
+        backward.markVisited(target);
+        distanceBackward[target] = 0;
+        parentBackward[target] = -1;
+
+        while (headForward < tailForward && headBackward < tailBackward) {
+            int meeting = -1;
+            int lengthOfMeeting = Integer.MAX_VALUE;
+
+            if (tailForward - headForward <= tailBackward - headBackward) {
+                int endOfLayer = tailForward;
+                while (headForward < endOfLayer) {
+                    int current = queueForward[headForward++];
+                    int currentX = current / sizeOfGrid;
+                    int currentY = current % sizeOfGrid;
+                    mode.detectDangerNodes(board, currentX, currentY, detectedDangerNodes);
+
+                    if (!board.isSafe(current, isInvisible)) {
+                        if (!detectedDangerNodes.contains(current)) {
+                            throw new HarryIsCapturedException();
+                        }
+                        continue;
+                    }
+
+                    for (int delta : neighbors.getDeltas(currentX, currentY)) {
+                        int adjacentCell = current + delta;
+                        if (forward.isVisited(adjacentCell)) {
+                            continue;
+                        }
+                        forward.markVisited(adjacentCell);
+                        distanceForward[adjacentCell] = distanceForward[current] + 1;
+                        parentForward[adjacentCell] = current;
+                        queueForward[tailForward++] = adjacentCell;
+
+                        if (adjacentCell == target) {
+                            return restorePath(board, parentForward, target);
+                        }
+                        if (backward.isVisited(adjacentCell) && distanceForward[adjacentCell] + distanceBackward[adjacentCell] < lengthOfMeeting) {
+                            meeting = adjacentCell;
+                            lengthOfMeeting = distanceForward[adjacentCell] + distanceBackward[adjacentCell];
+                        }
+                    }
+                }
+            } else {
+                int endOfLayer = tailBackward;
+                while (headBackward < endOfLayer) {
+                    int current = queueBackward[headBackward++];
+                    int currentX = current / sizeOfGrid;
+                    int currentY = current % sizeOfGrid;
+
+                    for (int delta : neighbors.getDeltas(currentX, currentY)) {
+                        int adjacentCell = current + delta;
+                        if (backward.isVisited(adjacentCell) || !board.isSafe(adjacentCell, isInvisible)) {
+                            continue;
+                        }
+                        backward.markVisited(adjacentCell);
+                        distanceBackward[adjacentCell] = distanceBackward[current] + 1;
+                        parentBackward[adjacentCell] = current;
+                        queueBackward[tailBackward++] = adjacentCell;
+
+                        // The cell is safe, so Harry can go through it even if he hasn't expanded it yet
+                        if (forward.isVisited(adjacentCell) && distanceForward[adjacentCell] + distanceBackward[adjacentCell] < lengthOfMeeting) {
+                            meeting = adjacentCell;
+                            lengthOfMeeting = distanceForward[adjacentCell] + distanceBackward[adjacentCell];
+                        }
+                    }
+                }
+            }
+
+            if (meeting != -1) {
+                ArrayList<Coordinate> path = restorePath(board, parentForward, meeting);
+                walk(board, meeting, isInvisible, mode);
+                for (int cell = parentBackward[meeting]; cell != -1; cell = parentBackward[cell]) {
+                    path.add(board.toCoordinate(cell));
+                    walk(board, cell, isInvisible, mode);
+                }
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Harry steps into the cell of the path which the forward search hasn't expanded and detects dangers from it,
+     * the same as the forward search does for the cell it expands
+     *
+     * @throws HarryIsCapturedException if the cell is unsafe and not detected
+     */
+    private void walk(Board board, int cell, boolean isInvisible, Perception mode) throws HarryIsCapturedException {
+        mode.detectDangerNodes(board, board.getX(cell), board.getY(cell), detectedDangerNodes);
+        if (!board.isSafe(cell, isInvisible) && !detectedDangerNodes.contains(cell)) {
+            throw new HarryIsCapturedException();
+        }
+    }
+}
@@ -1,22 +1,51 @@
 package eduard.zaripov;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Contains all info about coordinates and cell in these coordinates
+ * <p>Cells are packed into one array: each cell is a bitmask of {@link TypeOfCell#getMask()} values, the cell in
+ * coordinate (X,Y) is stored by the index X * size + Y. All queries about the cell by index take O(1)</p>
  */
 public class Board {
     /**
-     * Matrix of cells
+     * Mask of cells which are not safe for Harry without the cloak
      */
-    private final ArrayList<ArrayList<Cell>> grid;
+    static final int DANGER_OR_INSPECTOR_MASK = TypeOfCell.DANGER.getMask() | TypeOfCell.INSPECTOR.getMask();
+    /**
+     * Mask of cells which are not safe for Harry with the cloak
+     */
+    static final int INSPECTOR_MASK = TypeOfCell.INSPECTOR.getMask();
+    /**
+     * Mask of cells with danger less than 0
+     */
+    static final int CRUCIAL_MASK = TypeOfCell.BOOK.getMask() | TypeOfCell.CLOAK.getMask() | TypeOfCell.EXIT.getMask();
+
+    /**
+     * Length of one row (or column)
+     */
+    private final int sizeOfGrid;
+    /**
+     * Packed matrix of cells
+     */
+    private final byte[] cells;
+    /**
+     * Cells with danger or inspector as bits: row X takes {@link #wordsPerRow} words, the cell (X,Y) is the bit Y % 64
+     * of the word Y / 64 of the row. It is needed to check many cells of the row by one operation
+     */
+    private final long[] dangerLayer;
+    private final int wordsPerRow;
 
-    private final Coordinate startPosition;
-    private final Coordinate filthPosition;
-    private final Coordinate catPosition;
-    private final Coordinate bookPosition;
-    private final Coordinate cloakPosition;
-    private final Coordinate exitPosition;
+    private Coordinate startPosition;
+    private Coordinate bookPosition;
+    private Coordinate cloakPosition;
+    private Coordinate exitPosition;
+    private ArrayList<Inspector> inspectors;
+    /**
+     * Number of changes of cells, see {@link #getVersion()}
+     */
+    private int version;
 
     /**
      * Creates board with input coordinates
@@ -33,58 +62,162 @@ public class Board {
                  Coordinate bookPosition,
                  Coordinate cloakPosition,
                  Coordinate exitPosition) throws IllegalInputCoordinate, HarryIsCapturedException {
-        grid = new ArrayList<>();
-        try {
-            // Initialization of grid
-            for (int row = 0; row < sizeOfGrid; row++) {
-                grid.add(new ArrayList<>());
-                for (int column = 0; column < sizeOfGrid; column++) {
-                    grid.get(row).add(new Cell());
-                }
+        this(sizeOfGrid, startPosition, bookPosition, cloakPosition, exitPosition,
+                new ArrayList<>(Arrays.asList(new Inspector(filthPosition, radiusOfStrongInspector), new Inspector(catPosition, radiusOfInspector))));
+    }
+
+    /**
+     * Creates board with any number of inspectors
+     *
+     * @param inspectors inspectors with their radii
+     * @throws IllegalInputCoordinate   if the coordinate is incorrect of crucial subjects are in the danger zone
+     * @throws HarryIsCapturedException if Harry is spawned inside the danger zone
+     */
+    public Board(int sizeOfGrid,
+                 Coordinate startPosition,
+                 Coordinate bookPosition,
+                 Coordinate cloakPosition,
+                 Coordinate exitPosition,
+                 ArrayList<Inspector> inspectors) throws IllegalInputCoordinate, HarryIsCapturedException {
+        this.sizeOfGrid = sizeOfGrid;
+        this.cells = new byte[sizeOfGrid * sizeOfGrid];
+        this.wordsPerRow = (sizeOfGrid + 63) >>> 6;
+        this.dangerLayer = new long[sizeOfGrid * wordsPerRow];
+
+        reset(startPosition, bookPosition, cloakPosition, exitPosition, inspectors);
+    }
+
+    /**
+     * Places subjects and inspectors on the board again, the size stays the same. The arrays of the board are reused,
+     * so it is cheaper than the new board when many boards are solved one by one
+     * <p>If it throws, the board is not valid until the next successful reset</p>
+     *
+     * @param inspectors inspectors with their radii
+     * @throws IllegalInputCoordinate   if the coordinate is incorrect of crucial subjects are in the danger zone
+     * @throws HarryIsCapturedException if Harry is spawned inside the danger zone
+     */
+    public void reset(Coordinate startPosition,
+                      Coordinate bookPosition,
+                      Coordinate cloakPosition,
+                      Coordinate exitPosition,
+                      ArrayList<Inspector> inspectors) throws IllegalInputCoordinate, HarryIsCapturedException {
+        Arrays.fill(cells, (byte) 0);
+        Arrays.fill(dangerLayer, 0L);
+        version++;
+
+        this.startPosition = startPosition;
+        this.cloakPosition = cloakPosition;
+        this.bookPosition = bookPosition;
+        this.exitPosition = exitPosition;
+        this.inspectors = new ArrayList<>(inspectors);
+
+        for (Coordinate coordinate : new Coordinate[]{startPosition, bookPosition, cloakPosition, exitPosition}) {
+            if (!isInside(coordinate.getX(), coordinate.getY())) {
+                throw new IllegalInputCoordinate("out of bounds of board");
             }
+        }
+        for (Inspector inspector : inspectors) {
+            if (!isInside(inspector.getPosition().getX(), inspector.getPosition().getY())) {
+                throw new IllegalInputCoordinate("out of bounds of board");
+            }
+        }
+
+        addTypeOfCell(index(startPosition), TypeOfCell.START);
+        addTypeOfCell(index(bookPosition), TypeOfCell.BOOK);
+        addTypeOfCell(index(cloakPosition), TypeOfCell.CLOAK);
+
+        // Exit cell cannot be at the same coordinate as Book cell
+        if (!contains(index(exitPosition), TypeOfCell.BOOK)) {
+            addTypeOfCell(index(exitPosition), TypeOfCell.EXIT);
+        } else {
+            throw new IllegalInputCoordinate(TypeOfCell.BOOK, TypeOfCell.EXIT);
+        }
+
+        // If Harry spawned with cloak
+        boolean isInvisible = startPosition.equals(cloakPosition);
 
-            this.startPosition = startPosition;
-            this.filthPosition = filthPosition;
-            this.catPosition = catPosition;
-            this.cloakPosition= cloakPosition;
-            this.bookPosition = bookPosition;
-            this.exitPosition = exitPosition;
-
-            getCell(startPosition).addTypeOfNode(TypeOfCell.START);
-            getCell(bookPosition).addTypeOfNode(TypeOfCell.BOOK);
-            getCell(cloakPosition).addTypeOfNode(TypeOfCell.CLOAK);
-
-            // Exit cell cannot be at the same coordinate as Book cell
-            if (!getCell(exitPosition).getTypesOfNode().contains(TypeOfCell.BOOK)) {
-                getCell(exitPosition).addTypeOfNode(TypeOfCell.EXIT);
-            } else {
-                throw new IllegalInputCoordinate(TypeOfCell.BOOK, TypeOfCell.EXIT);
+        addInspectors(inspectors, isInvisible);
+
+        // Initialize the remaining cells as DEFAULT
+        for (int index = 0; index < cells.length; index++) {
+            if (cells[index] == 0) {
+                cells[index] = (byte) TypeOfCell.DEFAULT.getMask();
             }
+        }
 
-            // If Harry spawned with cloak
-            boolean isInvisible = startPosition.equals(cloakPosition);
+        // If harry spawned inside the danger zone
+        if (isDangerOrInspector(index(startPosition))) {
+            throw new HarryIsCapturedException();
+        }
+    }
 
-            addInspector(filthPosition, radiusOfStrongInspector, isInvisible);
-            addInspector(catPosition, radiusOfInspector, isInvisible);
+    /**
+     * Searches which keep info about the board between calls compare it to know that the board is changed
+     *
+     * @return number which changes with each {@link #reset} and {@link #addInspector}
+     */
+    public int getVersion() {
+        return version;
+    }
 
+    /**
+     * Adds all inspectors and their danger zones in O(size * size + number of inspectors) whatever the radii are
+     * <p>It is 2D difference array swept row by row. The square of the inspector adds 1 to its columns from its first
+     * row and removes it after its last row, so only the difference by columns for the current row is kept. The
+     * prefix sum of this difference is the number of inspectors which see the cell</p>
+     *
+     * @param isInvisible for special condition when harry spawned with cloak, crucial elements can be spawned inside the danger zone
+     * @throws IllegalInputCoordinate if the in danger radius there is crucial elements
+     */
+    private void addInspectors(ArrayList<Inspector> inspectors, boolean isInvisible) throws IllegalInputCoordinate {
+        // Lists of events for each row. Event 2 * i is the first row of the inspector i, 2 * i + 1 is the row after his last row
+        int[] firstEventOfRow = new int[sizeOfGrid + 1];
+        Arrays.fill(firstEventOfRow, -1);
+        int[] nextEvent = new int[2 * inspectors.size()];
+        for (int i = 0; i < inspectors.size(); i++) {
+            Inspector inspector = inspectors.get(i);
+            int fromRow = Math.max(inspector.getPosition().getX() - inspector.getRadius(), 0);
+            int afterRow = Math.min(inspector.getPosition().getX() + inspector.getRadius(), sizeOfGrid - 1) + 1;
+            nextEvent[2 * i] = firstEventOfRow[fromRow];
+            firstEventOfRow[fromRow] = 2 * i;
+            nextEvent[2 * i + 1] = firstEventOfRow[afterRow];
+            firstEventOfRow[afterRow] = 2 * i + 1;
+        }
 
-            // Initialize the remaining cells as DEFAULT
-            for (int row = 0; row < sizeOfGrid; row++) {
-                for (int column = 0; column < sizeOfGrid; column++) {
-                    Coordinate currentCoordinate = new Coordinate(row, column);
-                    if (getCell(currentCoordinate).getTypesOfNode().isEmpty()) {
-                        getCell(currentCoordinate).addTypeOfNode(TypeOfCell.DEFAULT);
-                    }
-                }
+        int[] differenceOfColumns = new int[sizeOfGrid + 1];
+        for (int row = 0; row < sizeOfGrid; row++) {
+            for (int event = firstEventOfRow[row]; event != -1; event = nextEvent[event]) {
+                Inspector inspector = inspectors.get(event / 2);
+                int sign = event % 2 == 0 ? 1 : -1;
+                differenceOfColumns[Math.max(inspector.getPosition().getY() - inspector.getRadius(), 0)] += sign;
+                differenceOfColumns[Math.min(inspector.getPosition().getY() + inspector.getRadius(), sizeOfGrid - 1) + 1] -= sign;
             }
 
-            // If harry spawned inside the danger zone
-            if (getCell(startPosition).isDangerOrInspector()) {
-                throw new HarryIsCapturedException();
+            int numberOfInspectors = 0;
+            for (int column = 0; column < sizeOfGrid; column++) {
+                numberOfInspectors += differenceOfColumns[column];
+                if (numberOfInspectors == 0) {
+                    continue;
+                }
+                int index = index(row, column);
+                if (containsCrucialElements(index) && !isInvisible) {
+                    throw new IllegalInputCoordinate(getCell(index).getTypesOfNode().first(), TypeOfCell.DANGER);
+                }
+                addTypeOfCell(index, TypeOfCell.DANGER);
             }
-        } catch (IndexOutOfBoundsException e) {
-            throw new IllegalInputCoordinate("out of bounds of board");
         }
+
+        for (Inspector inspector : inspectors) {
+            int index = index(inspector.getPosition());
+            replaceDangerWithInspector(index);
+        }
+    }
+
+    /**
+     * @return inspectors passed to the constructor or to the last {@link #reset}
+     */
+    public ArrayList<Inspector> getInspectors() {
+        return new ArrayList<>(inspectors);
     }
 
     /**
@@ -96,31 +229,156 @@ public class Board {
      * @throws IllegalInputCoordinate if the in danger radius there is crucial elements
      */
     public void addInspector(Coordinate coordinate, int radius, boolean isInvisible) throws IllegalInputCoordinate {
-        for (int row = coordinate.getX() - radius; row <= coordinate.getX() + radius; row++) {
-            for (int column = coordinate.getY() - radius; column <= coordinate.getY() + radius; column++) {
-                Coordinate currentCoordinate = new Coordinate(row, column);
-                if (row < 0 || row >= grid.size() || column < 0 || column >= grid.size()) {
-                    continue;
-                }
-                if (getCell(currentCoordinate).containsCrucialElements() && !isInvisible) {
-                    throw new IllegalInputCoordinate(getCell(currentCoordinate).getTypesOfNode().first(), TypeOfCell.DANGER);
-                } else if (!getCell(currentCoordinate).getTypesOfNode().contains(TypeOfCell.INSPECTOR)) {
-                    getCell(currentCoordinate).addTypeOfNode(TypeOfCell.DANGER);
+        if (!isInside(coordinate.getX(), coordinate.getY())) {
+            throw new IllegalInputCoordinate("out of bounds of board");
+        }
+        int fromRow = Math.max(coordinate.getX() - radius, 0);
+        int toRow = Math.min(coordinate.getX() + radius, sizeOfGrid - 1);
+        int fromColumn = Math.max(coordinate.getY() - radius, 0);
+        int toColumn = Math.min(coordinate.getY() + radius, sizeOfGrid - 1);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int column = fromColumn; column <= toColumn; column++) {
+                int index = index(row, column);
+                if (containsCrucialElements(index) && !isInvisible) {
+                    throw new IllegalInputCoordinate(getCell(index).getTypesOfNode().first(), TypeOfCell.DANGER);
+                } else if (!isInspector(index)) {
+                    addTypeOfCell(index, TypeOfCell.DANGER);
                 }
             }
         }
-        getCell(coordinate).getTypesOfNode().remove(TypeOfCell.DANGER); // for replacing danger with inspector
-        getCell(coordinate).addTypeOfNode(TypeOfCell.INSPECTOR);
+        int index = index(coordinate);
+        replaceDangerWithInspector(index);
+        version++;
     }
 
     /**
      * Map coordinate to cell
      *
      * @param coordinate to map
-     * @return cell in this coordinate
+     * @return view of the cell in this coordinate
      */
     public Cell getCell(Coordinate coordinate) {
-        return grid.get(coordinate.getX()).get(coordinate.getY());
+        return getCell(index(coordinate));
+    }
+
+    /**
+     * Map index of cell to cell
+     *
+     * @param index index of cell, see {@link #index(int, int)}
+     * @return view of the cell in this index
+     */
+    public Cell getCell(int index) {
+        return new Cell(cells[index]);
+    }
+
+    /**
+     * @return index of the cell in coordinate (X,Y) in the packed matrix
+     */
+    public int index(int x, int y) {
+        return x * sizeOfGrid + y;
+    }
+
+    public int index(Coordinate coordinate) {
+        return index(coordinate.getX(), coordinate.getY());
+    }
+
+    public int getX(int index) {
+        return index / sizeOfGrid;
+    }
+
+    public int getY(int index) {
+        return index % sizeOfGrid;
+    }
+
+    /**
+     * @return coordinate of the cell with input index
+     */
+    public Coordinate toCoordinate(int index) {
+        return new Coordinate(getX(index), getY(index));
+    }
+
+    /**
+     * @return true if the coordinate doesn't go off the map
+     */
+    public boolean isInside(int x, int y) {
+        return x >= 0 && x < sizeOfGrid && y >= 0 && y < sizeOfGrid;
+    }
+
+    /**
+     * @return true if the cell with input index has the type
+     */
+    public boolean contains(int index, TypeOfCell typeOfCell) {
+        return (cells[index] & typeOfCell.getMask()) != 0;
+    }
+
+    public boolean contains(Coordinate coordinate, TypeOfCell typeOfCell) {
+        return contains(index(coordinate), typeOfCell);
+    }
+
+    /**
+     * Same as {@link Cell#containsCrucialElements()}
+     */
+    public boolean containsCrucialElements(int index) {
+        return (cells[index] & CRUCIAL_MASK) != 0;
+    }
+
+    /**
+     * Same as {@link Cell#isInspector()}
+     */
+    public boolean isInspector(int index) {
+        return (cells[index] & INSPECTOR_MASK) != 0;
+    }
+
+    /**
+     * Same as {@link Cell#isDangerOrInspector()}
+     */
+    public boolean isDangerOrInspector(int index) {
+        return (cells[index] & DANGER_OR_INSPECTOR_MASK) != 0;
+    }
+
+    /**
+     * Checks if the cell is safe for Harry
+     *
+     * @param index       index of cell
+     * @param isInvisible Has Harry the cloak. If it has, the DANGER cells will be safe for him
+     * @return true if it is safe for him
+     */
+    public boolean isSafe(int index, boolean isInvisible) {
+        return (cells[index] & (isInvisible ? INSPECTOR_MASK : DANGER_OR_INSPECTOR_MASK)) == 0;
+    }
+
+    private void addTypeOfCell(int index, TypeOfCell typeOfCell) {
+        cells[index] |= typeOfCell.getMask();
+        if ((typeOfCell.getMask() & DANGER_OR_INSPECTOR_MASK) != 0) {
+            dangerLayer[getX(index) * wordsPerRow + (getY(index) >>> 6)] |= 1L << getY(index);
+        }
+    }
+
+    private void replaceDangerWithInspector(int index) {
+        cells[index] = (byte) (cells[index] & ~TypeOfCell.DANGER.getMask());
+        addTypeOfCell(index, TypeOfCell.INSPECTOR);
+    }
+
+    /**
+     * Cells with danger or inspector in the part of the row, see {@link #isDangerOrInspector(int)}
+     *
+     * @param x          X of the row
+     * @param fromColumn the first Y of the part
+     * @param toColumn   the last Y of the part, the part can be 64 cells at most
+     * @return bit i is set if the cell (x, fromColumn + i) has danger or inspector
+     */
+    public long getDangerBits(int x, int fromColumn, int toColumn) {
+        int word = x * wordsPerRow + (fromColumn >>> 6);
+        int offset = fromColumn & 63;
+        long bits = dangerLayer[word] >>> offset;
+        if (offset != 0 && (fromColumn >>> 6) + 1 < wordsPerRow) {
+            bits |= dangerLayer[word + 1] << (64 - offset);
+        }
+        int width = toColumn - fromColumn + 1;
+        if (width < 64) {
+            bits &= (1L << width) - 1;
+        }
+        return bits;
     }
 
     /**
@@ -147,8 +405,8 @@ public class Board {
         final String ANSI_WHITE = "\u001B[37m";
         StringBuilder gridString = new StringBuilder();
 
-        for (int row = grid.size() - 1; row >= 0; row--) {
-            for (int column = 0; column < grid.size(); column++) {
+        for (int row = sizeOfGrid - 1; row >= 0; row--) {
+            for (int column = 0; column < sizeOfGrid; column++) {
                 int lengthOfNode;
                 Coordinate inverseCoordinate = new Coordinate(column, row);
 
@@ -183,6 +441,7 @@ public class Board {
 
     public Coordinate getPositionOfSubject(TypeOfCell subject) {
         switch (subject) {
+            case START: return startPosition;
             case BOOK: return bookPosition;
             case CLOAK: return cloakPosition;
             case EXIT: return exitPosition;
@@ -194,6 +453,6 @@ public class Board {
      * @return length of one row (or column)
      */
     public int size() {
-        return grid.size();
+        return sizeOfGrid;
     }
 }
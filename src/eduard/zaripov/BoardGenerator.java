@@ -0,0 +1,185 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Creates random correct inputs: inspectors anywhere, Harry, the book, the cloak and the exit outside of danger zones
+ * and the exit not on the book
+ * <p>The generator has its own {@link SplittableRandom}, so the same seed gives the same inputs. It is not thread
+ * safe, each thread should take its own generator by {@link #split()}</p>
+ * <p>Danger zones of the input are marked in the grid of the generator, so each random cell is checked in O(1). The
+ * grid is not cleared for the next input: the cell is dangerous if its mark is equal to the number of the input</p>
+ */
+public class BoardGenerator {
+    /**
+     * Number of attempts to place inspectors so that at least two cells are safe
+     */
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final int sizeOfGrid;
+    private final int[] radii;
+    private final SplittableRandom random;
+    /**
+     * Number of the input which marked the cell as dangerous
+     */
+    private final int[] dangerMarks;
+    private int numberOfInput;
+
+    /**
+     * Creates the generator of inputs for the standard board: two inspectors with radii of Filch and the cat
+     */
+    public BoardGenerator(long seed) {
+        this(seed, Solution.sizeOfGrid, Solution.filchRadius, Solution.catRadius);
+    }
+
+    /**
+     * @param seed       the same seed gives the same inputs
+     * @param sizeOfGrid length of row (or column)
+     * @param radii      radius of danger zone for each inspector
+     */
+    public BoardGenerator(long seed, int sizeOfGrid, int... radii) {
+        this(new SplittableRandom(seed), sizeOfGrid, radii.clone());
+    }
+
+    private BoardGenerator(SplittableRandom random, int sizeOfGrid, int[] radii) {
+        if (sizeOfGrid < 2) {
+            throw new IllegalArgumentException("Size of the board should be at least 2");
+        }
+        for (int radius : radii) {
+            if (radius < 0) {
+                throw new IllegalArgumentException("Radius of inspector cannot be negative");
+            }
+        }
+        this.random = random;
+        this.sizeOfGrid = sizeOfGrid;
+        this.radii = radii;
+        this.dangerMarks = new int[sizeOfGrid * sizeOfGrid];
+    }
+
+    /**
+     * @return new generator with the same board and the random which doesn't repeat this one, for another thread
+     */
+    public BoardGenerator split() {
+        return new BoardGenerator(random.split(), sizeOfGrid, radii);
+    }
+
+    /**
+     * @return number of values in the array of {@link #next(int[])}
+     */
+    public int getNumberOfValues() {
+        return 2 * (4 + radii.length);
+    }
+
+    /**
+     * Creates the next input without creating objects
+     *
+     * @param coordinates array of {@link #getNumberOfValues()} numbers to fill: X and Y of Harry, each inspector, the
+     *                    book, the cloak and the exit. For the standard board it is the same order as
+     *                    {@link IO#parseCoordinates(String)} returns and as {@link ScenarioVisitor} takes
+     * @return the same array
+     * @throws IllegalArgumentException if inspectors can cover almost the whole board
+     */
+    public int[] next(int[] coordinates) {
+        int numberOfInspectors = radii.length;
+        int attempts = 0;
+        while (placeInspectors(coordinates) < 2) {
+            if (++attempts == MAX_ATTEMPTS) {
+                throw new IllegalArgumentException("Inspectors cover almost the whole board");
+            }
+        }
+
+        int start = nextSafeCell();
+        int book = nextSafeCell();
+        int cloak = nextSafeCell();
+        int exit = nextSafeCell();
+        while (exit == book) {
+            exit = nextSafeCell();
+        }
+
+        setCell(coordinates, 0, start);
+        setCell(coordinates, numberOfInspectors + 1, book);
+        setCell(coordinates, numberOfInspectors + 2, cloak);
+        setCell(coordinates, numberOfInspectors + 3, exit);
+        return coordinates;
+    }
+
+    /**
+     * Same as {@link #next(int[])}, but coordinates are objects
+     */
+    public ArrayList<Coordinate> nextInputCoordinates() {
+        int[] values = next(new int[getNumberOfValues()]);
+        ArrayList<Coordinate> coordinates = new ArrayList<>(values.length / 2);
+        for (int i = 0; i < values.length; i += 2) {
+            coordinates.add(new Coordinate(values[i], values[i + 1]));
+        }
+        return coordinates;
+    }
+
+    /**
+     * @return new board for the next input
+     */
+    public Board nextBoard() {
+        ArrayList<Coordinate> coordinates = nextInputCoordinates();
+        ArrayList<Inspector> inspectors = new ArrayList<>();
+        for (int i = 0; i < radii.length; i++) {
+            inspectors.add(new Inspector(coordinates.get(i + 1), radii[i]));
+        }
+        try {
+            return new Board(sizeOfGrid, coordinates.get(0), coordinates.get(radii.length + 1),
+                    coordinates.get(radii.length + 2), coordinates.get(radii.length + 3), inspectors);
+        } catch (IllegalInputCoordinate | HarryIsCapturedException e) {
+            throw new IllegalStateException("Generated input is illegal: " + coordinates, e);
+        }
+    }
+
+    /**
+     * Places inspectors randomly and marks their danger zones
+     *
+     * @return number of safe cells
+     */
+    private int placeInspectors(int[] coordinates) {
+        if (++numberOfInput == 0) {
+            // Marks of old inputs would look like marks of this input
+            Arrays.fill(dangerMarks, 0);
+            numberOfInput = 1;
+        }
+        int numberOfDangerousCells = 0;
+        for (int i = 0; i < radii.length; i++) {
+            int x = random.nextInt(sizeOfGrid);
+            int y = random.nextInt(sizeOfGrid);
+            coordinates[2 * (i + 1)] = x;
+            coordinates[2 * (i + 1) + 1] = y;
+
+            int toRow = Math.min(x + radii[i], sizeOfGrid - 1);
+            int fromColumn = Math.max(y - radii[i], 0);
+            int toColumn = Math.min(y + radii[i], sizeOfGrid - 1);
+            for (int row = Math.max(x - radii[i], 0); row <= toRow; row++) {
+                for (int index = row * sizeOfGrid + fromColumn; index <= row * sizeOfGrid + toColumn; index++) {
+                    if (dangerMarks[index] != numberOfInput) {
+                        dangerMarks[index] = numberOfInput;
+                        numberOfDangerousCells++;
+                    }
+                }
+            }
+        }
+        return dangerMarks.length - numberOfDangerousCells;
+    }
+
+    /**
+     * @return index of the random cell outside of danger zones
+     */
+    private int nextSafeCell() {
+        int index = random.nextInt(dangerMarks.length);
+        while (dangerMarks[index] == numberOfInput) {
+            index = random.nextInt(dangerMarks.length);
+        }
+        return index;
+    }
+
+    private void setCell(int[] coordinates, int position, int index) {
+        coordinates[2 * position] = index / sizeOfGrid;
+        coordinates[2 * position + 1] = index % sizeOfGrid;
+    }
+}
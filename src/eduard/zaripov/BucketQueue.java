@@ -0,0 +1,206 @@
+package eduard.zaripov;
+
+import java.util.Arrays;
+
+/**
+ * Priority queue of cell indices with small integer keys (Dial's buckets). The cell with the least first key is
+ * taken, and among them the cell with the least second key
+ * <p>First keys of all cells in the queue should not be less than the first key of the last polled cell and should
+ * differ from it by less than three. It is true for A* with the unit cost of the move and the consistent heuristic:
+ * f of the neighbor is f, f + 1 or f + 2. So only three buckets are needed and they are reused in turn. Each bucket is split into lists by the second
+ * key. Lists are doubly-linked through arrays indexed by the cell, so push, remove and update take O(1). Poll takes
+ * O(1) besides the search of the nonempty list from the least second key of the bucket</p>
+ * <p>The queue is reused by searches of the thread (see {@link SearchArena}). {@link #clear()} resets only lists which
+ * were used since the last clear, so it doesn't depend on the size of the board</p>
+ */
+public class BucketQueue {
+    private static final int NUMBER_OF_BUCKETS = 3;
+
+    /**
+     * Second keys should be less than it
+     */
+    private int numberOfSecondKeys;
+    /**
+     * First cell of the list for (bucket, second key) or -1 if the list is empty
+     */
+    private int[] heads;
+    private int[] next;
+    private int[] previous;
+    /**
+     * Number of the list with the cell or -1 if the cell is not in the queue
+     */
+    private int[] lists;
+    /**
+     * Lists which got cells since the last clear, each list once
+     */
+    private int[] usedLists;
+    private boolean[] isUsed;
+    private int numberOfUsedLists;
+    /**
+     * No list of the bucket with the less second key has cells
+     */
+    private final int[] leastSecondKeys = new int[NUMBER_OF_BUCKETS];
+    private final int[] sizesOfBuckets = new int[NUMBER_OF_BUCKETS];
+    /**
+     * The least first key of cells in the queue, if it is not empty
+     */
+    private int leastFirstKey;
+    private int size;
+
+    /**
+     * @param capacity           number of cells which can be in the queue, cell indices should be less than it
+     * @param numberOfSecondKeys second keys should be less than it
+     */
+    public BucketQueue(int capacity, int numberOfSecondKeys) {
+        next = new int[capacity];
+        previous = new int[capacity];
+        lists = new int[capacity];
+        Arrays.fill(lists, -1);
+        setNumberOfSecondKeys(numberOfSecondKeys);
+    }
+
+    /**
+     * Clears the queue and grows it if it is smaller than input sizes
+     *
+     * @param capacity           cell indices should be less than it
+     * @param numberOfSecondKeys second keys should be less than it
+     */
+    public void ensureCapacity(int capacity, int numberOfSecondKeys) {
+        clear();
+        if (lists.length < capacity) {
+            next = new int[capacity];
+            previous = new int[capacity];
+            lists = new int[capacity];
+            Arrays.fill(lists, -1);
+        }
+        if (this.numberOfSecondKeys != numberOfSecondKeys) {
+            setNumberOfSecondKeys(numberOfSecondKeys);
+        }
+    }
+
+    private void setNumberOfSecondKeys(int numberOfSecondKeys) {
+        this.numberOfSecondKeys = numberOfSecondKeys;
+        heads = new int[NUMBER_OF_BUCKETS * numberOfSecondKeys];
+        usedLists = new int[NUMBER_OF_BUCKETS * numberOfSecondKeys];
+        isUsed = new boolean[NUMBER_OF_BUCKETS * numberOfSecondKeys];
+        Arrays.fill(heads, -1);
+        Arrays.fill(leastSecondKeys, numberOfSecondKeys);
+    }
+
+    /**
+     * Removes all cells. It takes O(number of used lists + number of cells in the queue)
+     */
+    public void clear() {
+        for (int i = 0; i < numberOfUsedLists; i++) {
+            int list = usedLists[i];
+            for (int cell = heads[list]; cell != -1; cell = next[cell]) {
+                lists[cell] = -1;
+            }
+            heads[list] = -1;
+            isUsed[list] = false;
+        }
+        numberOfUsedLists = 0;
+        Arrays.fill(leastSecondKeys, numberOfSecondKeys);
+        Arrays.fill(sizesOfBuckets, 0);
+        leastFirstKey = 0;
+        size = 0;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int cell) {
+        return lists[cell] != -1;
+    }
+
+    /**
+     * Adds the cell which is not in the queue
+     *
+     * @param cell      index of the cell
+     * @param firstKey  main key, f for A*
+     * @param secondKey key for cells with the same first key, h for A*
+     */
+    public void push(int cell, int firstKey, int secondKey) {
+        if (size == 0 || firstKey < leastFirstKey) {
+            leastFirstKey = firstKey;
+        }
+        int bucket = firstKey % NUMBER_OF_BUCKETS;
+        int list = bucket * numberOfSecondKeys + secondKey;
+        if (!isUsed[list]) {
+            isUsed[list] = true;
+            usedLists[numberOfUsedLists++] = list;
+        }
+        lists[cell] = list;
+        previous[cell] = -1;
+        next[cell] = heads[list];
+        if (heads[list] != -1) {
+            previous[heads[list]] = cell;
+        }
+        heads[list] = cell;
+
+        sizesOfBuckets[bucket]++;
+        leastSecondKeys[bucket] = Math.min(leastSecondKeys[bucket], secondKey);
+        size++;
+    }
+
+    /**
+     * Moves the cell in the queue to new keys
+     */
+    public void update(int cell, int firstKey, int secondKey) {
+        remove(cell);
+        push(cell, firstKey, secondKey);
+    }
+
+    /**
+     * Removes the cell with the least keys
+     *
+     * @return index of the cell
+     */
+    public int poll() {
+        int bucket = leastFirstKey % NUMBER_OF_BUCKETS;
+        while (sizesOfBuckets[bucket] == 0) {
+            leastFirstKey++;
+            bucket = leastFirstKey % NUMBER_OF_BUCKETS;
+        }
+        int secondKey = leastSecondKeys[bucket];
+        while (heads[bucket * numberOfSecondKeys + secondKey] == -1) {
+            secondKey++;
+        }
+        leastSecondKeys[bucket] = secondKey;
+
+        int cell = heads[bucket * numberOfSecondKeys + secondKey];
+        remove(cell);
+        return cell;
+    }
+
+    /**
+     * Removes the cell if it is in the queue
+     */
+    public void remove(int cell) {
+        int list = lists[cell];
+        if (list == -1) {
+            return;
+        }
+        if (previous[cell] != -1) {
+            next[previous[cell]] = next[cell];
+        } else {
+            heads[list] = next[cell];
+        }
+        if (next[cell] != -1) {
+            previous[next[cell]] = previous[cell];
+        }
+        lists[cell] = -1;
+
+        int bucket = list / numberOfSecondKeys;
+        sizesOfBuckets[bucket]--;
+        if (sizesOfBuckets[bucket] == 0) {
+            leastSecondKeys[bucket] = numberOfSecondKeys;
+        }
+        size--;
+    }
+}
@@ -4,6 +4,8 @@ import java.util.TreeSet;
 
 /**
  * Contains set of {@link TypeOfCell} and methods to work with it
+ * <p>{@link Board} keeps cells packed as bitmasks, so the cell returned by the board is a view created from
+ * the mask. Changing this view doesn't change the board</p>
  */
 public class Cell {
     private final TreeSet<TypeOfCell> typesOfNode;
@@ -12,6 +14,20 @@ public class Cell {
         this.typesOfNode = new TreeSet<>();
     }
 
+    /**
+     * Creates cell from the packed representation
+     *
+     * @param mask bitmask of {@link TypeOfCell#getMask()} values
+     */
+    public Cell(int mask) {
+        this();
+        for (TypeOfCell typeOfCell : TypeOfCell.values()) {
+            if ((mask & typeOfCell.getMask()) != 0) {
+                typesOfNode.add(typeOfCell);
+            }
+        }
+    }
+
     public TreeSet<TypeOfCell> getTypesOfNode() {
         return typesOfNode;
     }
@@ -37,6 +37,11 @@ public class Coordinate implements Comparable<Coordinate> {
         return X == that.X && Y == that.Y;
     }
 
+    @Override
+    public int hashCode() {
+        return 31 * X + Y;
+    }
+
     @Override
     public String toString() {
         return "X=" + X + ", Y=" + Y;
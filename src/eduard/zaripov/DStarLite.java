@@ -0,0 +1,278 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Harry goes to the subject step by step and replans the path with D* Lite when he detects new dangers
+ * <p>Harry knows only the cells he has detected (see {@link Perception}), all other cells are supposed to be safe.
+ * The search goes back from the subject, so g of each cell is its distance to the subject, and Harry steps to the
+ * neighbor with the least g. After the step he detects dangers, and only cells whose state is changed are updated:
+ * D* Lite repairs only the part of the tree which depends on them instead of the new search. Changed cells are
+ * taken from {@link DetectedDangers#getChange(int)}, so the update doesn't go through the whole board. The unsafe
+ * cell which Harry hasn't detected looks safe, so he is captured if he steps into it</p>
+ * <p>The tree is kept between calls while the subject is the same, for example for the same leg of another scenario,
+ * or for the leg to the same subject with the cloak: dangers which are safe with the cloak are just updated cells</p>
+ * <p>The returned path is the way Harry has walked, so it can be longer than the shortest one if he meets the danger
+ * which he didn't know about</p>
+ */
+public class DStarLite implements FindPathInterface {
+    /**
+     * Distance to the unreachable cell. It is less than max value, so it can be summed with the heuristic
+     */
+    private static final int INFINITY = Integer.MAX_VALUE / 4;
+
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+
+    {
+        // Only changed cells are updated in the tree
+        detectedDangerNodes.trackChanges();
+    }
+
+    /**
+     * The tree of the last call. It is reused by the next call with the same board and subject
+     */
+    private Board board;
+    private int versionOfBoard;
+    private int goal = -1;
+    private NeighborTable neighbors;
+    private int[] g;
+    private int[] rhs;
+    /**
+     * Cells which Harry knows as unsafe: detected and unsafe with the current state of the cloak
+     */
+    private boolean[] isKnownUnsafe;
+    private IndexedMinHeap open;
+    /**
+     * Sum of heuristics between positions of Harry for which keys are not recalculated
+     */
+    private int km;
+    private int lastStart;
+    private boolean isInvisible;
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    /**
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path which Harry has walked as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    @Override
+    public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        if (updateDetection) {
+            detectedDangerNodes.clear();
+        }
+        int start = board.index(startPosition);
+        int target = board.index(board.getPositionOfSubject(subjectToFind));
+
+        mode.detectDangerNodes(board, startPosition.getX(), startPosition.getY(), detectedDangerNodes);
+        if (!board.isSafe(start, isInvisible) && !detectedDangerNodes.contains(start)) {
+            throw new HarryIsCapturedException();
+        }
+
+        boolean isCloakChanged = isInvisible != this.isInvisible;
+        this.isInvisible = isInvisible;
+        if (board != this.board || board.getVersion() != versionOfBoard || target != goal) {
+            initialize(board, target, start);
+            updateDangerCells(start);
+        } else {
+            km += getHeuristic(lastStart, start);
+            lastStart = start;
+            // Detected cells and the cloak could be changed by other searches since the last call
+            if (isCloakChanged) {
+                updateDangerCells(start);
+            } else {
+                updateChangedCells(start);
+            }
+        }
+        computeShortestPath(start);
+
+        ArrayList<Coordinate> path = new ArrayList<>();
+        path.add(startPosition);
+        int current = start;
+        while (current != goal) {
+            if (rhs[current] >= INFINITY) {
+                return null;
+            }
+
+            int next = -1;
+            int minDistance = INFINITY;
+            for (int delta : neighbors.getDeltas(board.getX(current), board.getY(current))) {
+                int neighbor = current + delta;
+                // The subject can be in the danger zone if Harry is spawned with the cloak, he still can step into it
+                if ((!isKnownUnsafe[neighbor] || neighbor == goal) && g[neighbor] < minDistance) {
+                    next = neighbor;
+                    minDistance = g[neighbor];
+                }
+            }
+            if (next == -1) {
+                return null;
+            }
+
+            // The cell looks safe, but it can be the danger which Harry hasn't detected
+            if (next != goal && !board.isSafe(next, isInvisible)) {
+                throw new HarryIsCapturedException();
+            }
+            current = next;
+            path.add(board.toCoordinate(current));
+
+            mode.detectDangerNodes(board, board.getX(current), board.getY(current), detectedDangerNodes);
+            if (updateChangedCells(current)) {
+                km += getHeuristic(lastStart, current);
+                lastStart = current;
+                computeShortestPath(current);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Creates the new tree with the only cell in the open set: the subject
+     */
+    private void initialize(Board board, int target, int start) {
+        this.board = board;
+        this.versionOfBoard = board.getVersion();
+        this.goal = target;
+        this.neighbors = NeighborTable.forSize(board.size());
+        int numberOfCells = board.size() * board.size();
+        g = new int[numberOfCells];
+        rhs = new int[numberOfCells];
+        Arrays.fill(g, INFINITY);
+        Arrays.fill(rhs, INFINITY);
+        isKnownUnsafe = new boolean[numberOfCells];
+        open = new IndexedMinHeap(numberOfCells);
+        km = 0;
+        lastStart = start;
+
+        rhs[goal] = 0;
+        open.push(goal, calculateKey(goal, start));
+    }
+
+    /**
+     * Updates cells which are added to detected cells or removed from them since the last update
+     *
+     * @return true if Harry knows another state of any cell
+     */
+    private boolean updateChangedCells(int start) {
+        boolean isChanged = false;
+        for (int i = 0; i < detectedDangerNodes.getNumberOfChanges(); i++) {
+            isChanged |= updateKnowledge(detectedDangerNodes.getChange(i), start);
+        }
+        detectedDangerNodes.forgetChanges();
+        return isChanged;
+    }
+
+    /**
+     * Updates all cells with danger or inspector. Only they can be unsafe, so it is enough for the new tree and for
+     * another state of the cloak, and it takes O(number of cells / 64 + number of dangers)
+     */
+    private void updateDangerCells(int start) {
+        int sizeOfGrid = board.size();
+        for (int x = 0; x < sizeOfGrid; x++) {
+            for (int column = 0; column < sizeOfGrid; column += 64) {
+                long bits = board.getDangerBits(x, column, Math.min(column + 63, sizeOfGrid - 1));
+                while (bits != 0) {
+                    updateKnowledge(board.index(x, column + Long.numberOfTrailingZeros(bits)), start);
+                    bits &= bits - 1;
+                }
+            }
+        }
+        detectedDangerNodes.forgetChanges();
+    }
+
+    /**
+     * Updates whether Harry knows the cell as unsafe
+     *
+     * @return true if it is changed
+     */
+    private boolean updateKnowledge(int cell, int start) {
+        boolean isUnsafe = detectedDangerNodes.contains(cell) && !board.isSafe(cell, isInvisible);
+        if (isKnownUnsafe[cell] == isUnsafe) {
+            return false;
+        }
+        isKnownUnsafe[cell] = isUnsafe;
+        updateVertex(cell, start);
+        return true;
+    }
+
+    /**
+     * Recalculates rhs of the cell: one step more than the best neighbor, and puts the cell to the open set if
+     * it is inconsistent (g != rhs)
+     */
+    private void updateVertex(int cell, int start) {
+        if (cell != goal) {
+            int minDistance = INFINITY;
+            if (!isKnownUnsafe[cell]) {
+                for (int delta : neighbors.getDeltas(board.getX(cell), board.getY(cell))) {
+                    minDistance = Math.min(minDistance, g[cell + delta] + 1);
+                }
+            }
+            rhs[cell] = Math.min(minDistance, INFINITY);
+        }
+
+        if (g[cell] != rhs[cell]) {
+            if (open.contains(cell)) {
+                open.update(cell, calculateKey(cell, start));
+            } else {
+                open.push(cell, calculateKey(cell, start));
+            }
+        } else if (open.contains(cell)) {
+            open.remove(cell);
+        }
+    }
+
+    /**
+     * Processes inconsistent cells until g of the start is correct
+     */
+    private void computeShortestPath(int start) {
+        while (!open.isEmpty() && (open.getKey(open.peek()) < calculateKey(start, start) || rhs[start] > g[start])) {
+            int cell = open.peek();
+            double oldKey = open.getKey(cell);
+            double newKey = calculateKey(cell, start);
+            if (oldKey < newKey) {
+                open.update(cell, newKey);
+            } else if (g[cell] > rhs[cell]) {
+                g[cell] = rhs[cell];
+                open.remove(cell);
+                updateNeighbors(cell, start);
+            } else {
+                g[cell] = INFINITY;
+                updateVertex(cell, start);
+                updateNeighbors(cell, start);
+            }
+        }
+    }
+
+    private void updateNeighbors(int cell, int start) {
+        for (int delta : neighbors.getDeltas(board.getX(cell), board.getY(cell))) {
+            updateVertex(cell + delta, start);
+        }
+    }
+
+    /**
+     * Key [min(g, rhs) + h + km; min(g, rhs)] compared lexicographically. The second part is less than number of
+     * cells + 1, so the key is encoded as first * (number of cells + 1) + second
+     */
+    private double calculateKey(int cell, int start) {
+        int distance = Math.min(g[cell], rhs[cell]);
+        return (double) (distance + getHeuristic(start, cell) + km) * (g.length + 1) + distance;
+    }
+
+    /**
+     * Chebyshev distance between cells. It is the length of the path without dangers
+     */
+    private int getHeuristic(int from, int to) {
+        return Math.max(Math.abs(board.getX(from) - board.getX(to)), Math.abs(board.getY(from) - board.getY(to)));
+    }
+}
@@ -0,0 +1,138 @@
+package eduard.zaripov;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Set of cells which Harry has already seen, see {@link Perception}. Cells are identified by their index on
+ * the board, so adding a cell again doesn't change the set and checking the cell takes O(1)
+ * <p>The finder keeps one set for all paths of the scenario, for example: start -> book -> exit</p>
+ * <p>The finder which keeps info between calls can ask the set to track changes ({@link #trackChanges()}): then all
+ * added and removed cells are kept until {@link #forgetChanges()}, whoever changed the set</p>
+ */
+public class DetectedDangers {
+    private final BitSet cells = new BitSet();
+    private boolean isTracking;
+    /**
+     * Cells which are added or removed since the last {@link #forgetChanges()}. A cell can be here several times
+     */
+    private int[] changes = new int[0];
+    private int numberOfChanges;
+
+    public void add(int cell) {
+        if (isTracking && !cells.get(cell)) {
+            addChange(cell);
+        }
+        cells.set(cell);
+    }
+
+    public boolean contains(int cell) {
+        return cells.get(cell);
+    }
+
+    /**
+     * Forgets all detected cells. It is needed when the new scenario starts
+     */
+    public void clear() {
+        if (isTracking) {
+            addChanges(cells);
+        }
+        cells.clear();
+    }
+
+    /**
+     * Starts tracking changes of the set. Without it changes are not kept, so other sets don't pay for it
+     */
+    public void trackChanges() {
+        isTracking = true;
+    }
+
+    /**
+     * @return number of cells in {@link #getChange(int)}
+     */
+    public int getNumberOfChanges() {
+        return numberOfChanges;
+    }
+
+    /**
+     * @param i from 0 to {@link #getNumberOfChanges()}
+     * @return cell which is added or removed since the last {@link #forgetChanges()}
+     */
+    public int getChange(int i) {
+        return changes[i];
+    }
+
+    public void forgetChanges() {
+        numberOfChanges = 0;
+    }
+
+    private void addChange(int cell) {
+        if (numberOfChanges == changes.length) {
+            changes = Arrays.copyOf(changes, Math.max(16, 2 * changes.length));
+        }
+        changes[numberOfChanges++] = cell;
+    }
+
+    private void addChanges(BitSet changedCells) {
+        for (int cell = changedCells.nextSetBit(0); cell >= 0; cell = changedCells.nextSetBit(cell + 1)) {
+            addChange(cell);
+        }
+    }
+
+    /**
+     * @return new set with the same cells
+     */
+    public DetectedDangers copy() {
+        DetectedDangers copy = new DetectedDangers();
+        copy.cells.or(cells);
+        return copy;
+    }
+
+    /**
+     * Replaces all cells of this set with cells of the input set
+     */
+    public void copyFrom(DetectedDangers other) {
+        if (isTracking) {
+            BitSet changedCells = (BitSet) cells.clone();
+            changedCells.xor(other.cells);
+            addChanges(changedCells);
+        }
+        cells.clear();
+        cells.or(other.cells);
+    }
+
+    /**
+     * Adds all cells of the input set to this set
+     */
+    public void addAll(DetectedDangers other) {
+        if (isTracking) {
+            BitSet changedCells = (BitSet) other.cells.clone();
+            changedCells.andNot(cells);
+            addChanges(changedCells);
+        }
+        cells.or(other.cells);
+    }
+
+    /**
+     * Equals if the sets contain the same cells
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        DetectedDangers that = (DetectedDangers) o;
+        return cells.equals(that.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return cells.hashCode();
+    }
+
+    /**
+     * @return number of detected cells
+     */
+    public int size() {
+        return cells.cardinality();
+    }
+}
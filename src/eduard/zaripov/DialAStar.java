@@ -0,0 +1,136 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+
+/**
+ * Algorithm for finding the shortest path from coordinate to subject using A* with integer keys
+ * <p>Harry moves to any of eight neighbors by one step, so the exact length of the path without dangers is Chebyshev
+ * distance. It is the heuristic: it never overestimates the length and it changes by at most one per move. So f of
+ * the neighbor is f, f + 1 or f + 2, and the open set is {@link BucketQueue} instead of the heap: push, update and
+ * poll take O(1). Among cells with the same f the cell with the least h (it means the greatest g) is taken, so the
+ * search goes straight to the subject when there are no dangers on the way</p>
+ * <p>The path has the shortest length, the same as of {@link BFS}. As in {@link AStar}, g, previous cells, the closed
+ * set and the queue are buffers of {@link SearchArena} of the current thread, so the call costs the number of
+ * expanded cells instead of the size of the board</p>
+ */
+public class DialAStar implements FindPathInterface {
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+
+    /**
+     * Counters of the work or null if they are not needed
+     */
+    private SearchMetrics metrics;
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    @Override
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    @Override
+    public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        if (updateDetection) {
+            detectedDangerNodes.clear();
+        }
+        int sizeOfGrid = board.size();
+        int numberOfCells = sizeOfGrid * sizeOfGrid;
+        Coordinate target = board.getPositionOfSubject(subjectToFind);
+        NeighborTable neighbors = NeighborTable.forSize(sizeOfGrid);
+
+        SearchArena arena = SearchArena.current();
+        arena.prepare(numberOfCells);
+        int[] g = arena.getCosts(numberOfCells);
+        int[] previous = arena.getParent();
+        BucketQueue open = arena.getBucketQueue();
+        // Chebyshev distance on the board is less than its size
+        open.ensureCapacity(numberOfCells, sizeOfGrid);
+
+        int start = board.index(startPosition);
+        g[start] = 0;
+        previous[start] = -1;
+        int startHeuristic = getHeuristic(start / sizeOfGrid, start % sizeOfGrid, target);
+        open.push(start, startHeuristic, startHeuristic);
+
+        // Work of the leg for metrics, it is counted locally and added once
+        int expandedNodes = 0;
+        int pushes = 1;
+        int neighborChecks = 0;
+        int detections = 0;
+        boolean isCaptured = false;
+        try {
+            while (!open.isEmpty()) {
+                int current = open.poll();
+                arena.markVisited(current);
+                int currentX = current / sizeOfGrid;
+                int currentY = current % sizeOfGrid;
+
+                mode.detectDangerNodes(board, currentX, currentY, detectedDangerNodes);
+                detections++;
+
+                if (!board.isSafe(current, isInvisible)) {
+                    if (!detectedDangerNodes.contains(current)) {
+                        isCaptured = true;
+                        throw new HarryIsCapturedException();
+                    }
+                    continue;
+                }
+
+                if (board.contains(current, subjectToFind)) {
+                    return restorePath(board, previous, current);
+                }
+
+                expandedNodes++;
+                for (int delta : neighbors.getDeltas(currentX, currentY)) {
+                    int neighbor = current + delta;
+                    neighborChecks++;
+                    if (arena.isVisited(neighbor)) {
+                        continue;
+                    }
+
+                    int tentativeG = g[current] + 1;
+                    if (open.contains(neighbor) && tentativeG >= g[neighbor]) {
+                        continue;
+                    }
+                    g[neighbor] = tentativeG;
+                    previous[neighbor] = current;
+                    int heuristic = getHeuristic(neighbor / sizeOfGrid, neighbor % sizeOfGrid, target);
+                    if (open.contains(neighbor)) {
+                        open.update(neighbor, tentativeG + heuristic, heuristic);
+                    } else {
+                        open.push(neighbor, tentativeG + heuristic, heuristic);
+                        pushes++;
+                    }
+                }
+            }
+            return null;
+        } finally {
+            if (metrics != null) {
+                metrics.recordLeg(expandedNodes, pushes, neighborChecks, detections, isCaptured);
+            }
+        }
+    }
+
+    /**
+     * Chebyshev distance from the cell to the end position
+     */
+    private int getHeuristic(int x, int y, Coordinate endPosition) {
+        return Math.max(Math.abs(x - endPosition.getX()), Math.abs(y - endPosition.getY()));
+    }
+}
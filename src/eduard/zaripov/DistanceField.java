@@ -0,0 +1,91 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Distances from one cell to all cells of the board, calculated by one Breadth-First search
+ * <p>The search goes only through cells which are safe for Harry with or without the cloak. Unsafe cells get the
+ * distance too, because the path can end in them, but the search doesn't go further. Moves are symmetric, so the
+ * field from the checkpoint gives the shortest path from it to every cell</p>
+ * <p>The field knows the whole board, so it doesn't use {@link Perception} and Harry can't be captured</p>
+ */
+public class DistanceField {
+    private final Board board;
+    private final int source;
+    /**
+     * Distance from the source for each cell, -1 if the cell is not reachable
+     */
+    private final int[] distances;
+    /**
+     * Index of the previous cell in the shortest path from the source, -1 for the source
+     */
+    private final int[] previous;
+
+    /**
+     * Calculates the field
+     *
+     * @param board       all info about cells in coordinates
+     * @param source      cell to calculate distances from
+     * @param isInvisible If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     */
+    public DistanceField(Board board, Coordinate source, boolean isInvisible) {
+        this.board = board;
+        this.source = board.index(source);
+        int sizeOfGrid = board.size();
+        int numberOfCells = sizeOfGrid * sizeOfGrid;
+        NeighborTable neighbors = NeighborTable.forSize(sizeOfGrid);
+
+        distances = new int[numberOfCells];
+        previous = new int[numberOfCells];
+        Arrays.fill(distances, -1);
+        int[] queue = new int[numberOfCells];
+        int head = 0;
+        int tail = 0;
+
+        queue[tail++] = this.source;
+        distances[this.source] = 0;
+        previous[this.source] = -1;
+
+        while (head < tail) {
+            int current = queue[head++];
+            // Harry is already in the source, so only other unsafe cells stop him
+            if (current != this.source && !board.isSafe(current, isInvisible)) {
+                continue;
+            }
+            for (int delta : neighbors.getDeltas(current / sizeOfGrid, current % sizeOfGrid)) {
+                int adjacentCell = current + delta;
+                if (distances[adjacentCell] == -1) {
+                    distances[adjacentCell] = distances[current] + 1;
+                    previous[adjacentCell] = current;
+                    queue[tail++] = adjacentCell;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of moves from the source to the coordinate or -1 if it is not reachable
+     */
+    public int getDistance(Coordinate coordinate) {
+        return distances[board.index(coordinate)];
+    }
+
+    /**
+     * @return the shortest path from the source to the coordinate or null if it is not reachable
+     */
+    public ArrayList<Coordinate> getPath(Coordinate coordinate) {
+        int cell = board.index(coordinate);
+        if (distances[cell] == -1) {
+            return null;
+        }
+        ArrayList<Coordinate> path = new ArrayList<>(distances[cell] + 1);
+        for (int i = 0; i <= distances[cell]; i++) {
+            path.add(null);
+        }
+        for (int i = distances[cell]; cell != -1; i--, cell = previous[cell]) {
+            path.set(i, board.toCoordinate(cell));
+        }
+        return path;
+    }
+}
@@ -0,0 +1,124 @@
+package eduard.zaripov;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+
+/**
+ * Statistics of experiments calculated in one pass, without keeping results
+ * <p>Results are lines in format of:</p>
+ * <p>X Y Z</p>
+ * where X=length, Y=time, Z=w or l (win or lose)
+ * <p>The time is in milliseconds, or in nanoseconds if the file starts with the comment "# [length timeNs win]"
+ * (see {@link StatisticsCalculator#startExperiments}). Other comments start from #</p>
+ * <p>Time of all experiments and length of won experiments are kept in {@link Histogram}, so statistics of
+ * different files can be merged by {@link #add(ExperimentStatistics)}</p>
+ */
+public class ExperimentStatistics {
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /**
+     * Time of execution in nanoseconds
+     */
+    private final Histogram times = new Histogram();
+    /**
+     * Length of the path of won experiments
+     */
+    private final Histogram lengths = new Histogram();
+    private long numberOfExperiments;
+    private long numberOfWins;
+
+    /**
+     * Adds result of one experiment
+     *
+     * @param length      length of the path, ignored if Harry lose
+     * @param timeInNanos time of execution
+     * @param isWin       true if the path is found
+     */
+    public void record(int length, long timeInNanos, boolean isWin) {
+        numberOfExperiments++;
+        times.record(timeInNanos);
+        if (isWin) {
+            numberOfWins++;
+            lengths.record(length);
+        }
+    }
+
+    /**
+     * Adds all experiments of other statistics
+     */
+    public void add(ExperimentStatistics other) {
+        numberOfExperiments += other.numberOfExperiments;
+        numberOfWins += other.numberOfWins;
+        times.add(other.times);
+        lengths.add(other.lengths);
+    }
+
+    /**
+     * Reads results from the file
+     *
+     * @param nameOfFile file to read
+     * @return statistics of the file
+     * @throws IOException           if the file can't be read
+     * @throws NumberFormatException if the line is not in the correct format
+     */
+    public static ExperimentStatistics fromFile(String nameOfFile) throws IOException {
+        ExperimentStatistics statistics = new ExperimentStatistics();
+        try (BufferedReader reader = new BufferedReader(new FileReader(nameOfFile))) {
+            long nanosPerUnit = NANOS_PER_MILLI;
+            boolean isFirstLine = true;
+            String row;
+            while ((row = reader.readLine()) != null) {
+                if (row.isEmpty()) {
+                    continue;
+                }
+                if (row.charAt(0) == '#') {
+                    if (isFirstLine && row.contains("timeNs")) {
+                        nanosPerUnit = 1;
+                    }
+                    isFirstLine = false;
+                    continue;
+                }
+                isFirstLine = false;
+                statistics.parseRow(row, nanosPerUnit);
+            }
+        }
+        return statistics;
+    }
+
+    private void parseRow(String row, long nanosPerUnit) {
+        int firstSpace = row.indexOf(' ');
+        int secondSpace = row.indexOf(' ', firstSpace + 1);
+        if (firstSpace == -1 || secondSpace == -1) {
+            throw new NumberFormatException("Should be 3 values: " + row);
+        }
+        int length = Integer.parseInt(row.substring(0, firstSpace));
+        long time = Long.parseLong(row.substring(firstSpace + 1, secondSpace));
+        record(length, time * nanosPerUnit, row.substring(secondSpace + 1).trim().equals("w"));
+    }
+
+    public long getNumberOfExperiments() {
+        return numberOfExperiments;
+    }
+
+    /**
+     * @return part of won experiments from 0 to 1
+     */
+    public double getWinRate() {
+        return numberOfExperiments == 0 ? 0 : numberOfWins / (double) numberOfExperiments;
+    }
+
+    /**
+     * @return time of execution of all experiments in nanoseconds
+     */
+    public Histogram getTimes() {
+        return times;
+    }
+
+    /**
+     * @return length of the path of won experiments
+     */
+    public Histogram getLengths() {
+        return lengths;
+    }
+}
@@ -51,6 +51,33 @@ public interface FindPathInterface {
      */
     ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException;
 
+    /**
+     * Name of the search. Searches with the same name should find the same paths, it is used by {@link LegCache}
+     *
+     * @return name of the search with its parameters
+     */
+    default String getName() {
+        return getClass().getSimpleName();
+    }
+
+    /**
+     * Cells detected by the search since the last call with updateDetection = true
+     *
+     * @return detected cells or null if the search doesn't keep them. Such search is not cached by {@link LegCache}
+     */
+    default DetectedDangers getDetectedDangers() {
+        return null;
+    }
+
+    /**
+     * Attaches counters of the work of the search. The search adds its work to them at the end of each leg.
+     * Searches which don't count their work ignore them
+     *
+     * @param metrics counters or null to stop counting
+     */
+    default void setMetrics(SearchMetrics metrics) {
+    }
+
     /**
      * Checks if the current coordinate is safe
      *
@@ -60,14 +87,8 @@ public interface FindPathInterface {
      * @return true if it is safe for him
      */
     default boolean isSafe(Board board, Coordinate coordinate, boolean isInvisible) {
-        if (isInvisible) {
-            return (coordinate.getY() >= 0 && coordinate.getY() < board.size()) &&
-                    (coordinate.getX() >= 0 && coordinate.getX() < board.size()) &&
-                    (!board.getCell(coordinate).isInspector());
-        }
-        return (coordinate.getY() >= 0 && coordinate.getY() < board.size()) &&
-                (coordinate.getX() >= 0 && coordinate.getX() < board.size()) &&
-                (!board.getCell(coordinate).isDangerOrInspector());
+        return board.isInside(coordinate.getX(), coordinate.getY()) &&
+                board.isSafe(board.index(coordinate), isInvisible);
     }
 
     /**
@@ -89,8 +110,28 @@ public interface FindPathInterface {
         return path;
     }
 
+    /**
+     * Construct path through the array of references to the previous cell index:
+     * <p>-1 <- First <- Second <- Third</p>
+     *
+     * @param board    board to map indices to coordinates
+     * @param previous index of the previous cell in path for each cell, -1 for the first cell
+     * @param index    index of the last cell of path
+     * @return path as a list of coordinates
+     */
+    default ArrayList<Coordinate> restorePath(Board board, int[] previous, int index) {
+        ArrayList<Coordinate> path = new ArrayList<>();
+        while (index != -1) {
+            path.add(board.toCoordinate(index));
+            index = previous[index];
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
     /**
      * Finds all coordinates of neighbors of input coordianate that don't go off the map
+     * <p>Finders walk {@link NeighborTable} directly, this method creates the list for the other users</p>
      *
      * @param coordinate current coordinate
      * @param sizeOfGrid size of map to check validity of neighbors
@@ -98,18 +139,10 @@ public interface FindPathInterface {
      */
     default ArrayList<Coordinate> getNeighbors(Coordinate coordinate, int sizeOfGrid) {
         ArrayList<Coordinate> neighbors = new ArrayList<>();
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                if (i == 0 && j == 0) {
-                    continue;
-                }
-                Coordinate neighbor = new Coordinate(coordinate.getX() + i, coordinate.getY() + j);
-                if ((neighbor.getY() >= 0 && neighbor.getY() < sizeOfGrid) && (neighbor.getX() >= 0 && neighbor.getX() < sizeOfGrid)) {
-                    neighbors.add(neighbor);
-                }
-            }
+        int cell = coordinate.getX() * sizeOfGrid + coordinate.getY();
+        for (int delta : NeighborTable.forSize(sizeOfGrid).getDeltas(coordinate.getX(), coordinate.getY())) {
+            neighbors.add(new Coordinate((cell + delta) / sizeOfGrid, (cell + delta) % sizeOfGrid));
         }
-
         return neighbors;
     }
 }
@@ -0,0 +1,119 @@
+package eduard.zaripov;
+
+/**
+ * Histogram of non-negative values for percentiles, in the same way as HdrHistogram
+ * <p>Values less than 128 have their own buckets. Greater values are split into ranges between powers of two, and
+ * each range is split into 64 equal buckets, so the bucket of the value is not wider than 1/64 of it. Percentiles
+ * are calculated by the buckets, so the error is less than 2% whatever the values are, and the histogram takes
+ * the same memory for any number of values</p>
+ * <p>All histograms have the same buckets, so histograms of different files or threads can be merged by
+ * {@link #add(Histogram)}</p>
+ */
+public class Histogram {
+    /**
+     * Values less than 2 ^ PRECISION have their own buckets
+     */
+    private static final int PRECISION = 7;
+    private static final int EXACT_VALUES = 1 << PRECISION;
+    private static final int BUCKETS_PER_RANGE = EXACT_VALUES / 2;
+    private static final int NUMBER_OF_BUCKETS = EXACT_VALUES + (63 - PRECISION) * BUCKETS_PER_RANGE;
+
+    private final long[] counts = new long[NUMBER_OF_BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Adds the value
+     *
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Value of histogram cannot be negative");
+        }
+        counts[getBucket(value)]++;
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values of another histogram
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return exact mean value or 0 if there are no values
+     */
+    public double getMean() {
+        return count == 0 ? 0 : sum / (double) count;
+    }
+
+    /**
+     * @return exact min value or 0 if there are no values
+     */
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    /**
+     * @return exact max value or 0 if there are no values
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * @param percentile from 0 to 100, for example 50 for the median
+     * @return value which is not less than the percentile of values (the greatest value of its bucket), or 0 if
+     * there are no values
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(getHighestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int getBucket(long value) {
+        if (value < EXACT_VALUES) {
+            return (int) value;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(value);
+        int shift = highestBit - (PRECISION - 1);
+        return EXACT_VALUES + (highestBit - PRECISION) * BUCKETS_PER_RANGE + (int) (value >>> shift) - BUCKETS_PER_RANGE;
+    }
+
+    private static long getHighestValue(int bucket) {
+        if (bucket < EXACT_VALUES) {
+            return bucket;
+        }
+        int range = (bucket - EXACT_VALUES) / BUCKETS_PER_RANGE;
+        long mantissa = (bucket - EXACT_VALUES) % BUCKETS_PER_RANGE + BUCKETS_PER_RANGE;
+        int shift = range + 1;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,180 @@
+package eduard.zaripov;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of cell indices ordered by key. Each cell can be in the heap only once, and its position
+ * in the heap is tracked, so it supports contains and decrease-key in O(1) and O(log n)
+ */
+public class IndexedMinHeap {
+    /**
+     * Cell indices in heap order
+     */
+    private int[] heap;
+    /**
+     * Position of the cell in the heap array or -1 if the cell is not in the heap
+     */
+    private int[] positions;
+    /**
+     * Key of the cell. Valid only while the cell is in the heap
+     */
+    private double[] keys;
+    private int size;
+
+    /**
+     * @param capacity number of cells which can be in the heap, cell indices should be less than it
+     */
+    public IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Grows the heap if it is smaller than input capacity. Clears the heap
+     */
+    public void ensureCapacity(int capacity) {
+        clear();
+        if (positions.length < capacity) {
+            heap = new int[capacity];
+            positions = new int[capacity];
+            keys = new double[capacity];
+            Arrays.fill(positions, -1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int cell) {
+        return positions[cell] != -1;
+    }
+
+    public double getKey(int cell) {
+        return keys[cell];
+    }
+
+    /**
+     * Adds the cell which is not in the heap
+     */
+    public void push(int cell, double key) {
+        heap[size] = cell;
+        positions[cell] = size;
+        keys[cell] = key;
+        siftUp(size++);
+    }
+
+    /**
+     * Decreases key of the cell which is already in the heap
+     */
+    public void decreaseKey(int cell, double key) {
+        keys[cell] = key;
+        siftUp(positions[cell]);
+    }
+
+    /**
+     * Changes key of the cell which is already in the heap, the key can be greater or less than the current one
+     */
+    public void update(int cell, double key) {
+        double oldKey = keys[cell];
+        keys[cell] = key;
+        if (key < oldKey) {
+            siftUp(positions[cell]);
+        } else {
+            siftDown(positions[cell]);
+        }
+    }
+
+    /**
+     * @return the cell with the minimal key without removing it
+     */
+    public int peek() {
+        return heap[0];
+    }
+
+    /**
+     * Removes the cell which is in the heap
+     */
+    public void remove(int cell) {
+        int position = positions[cell];
+        positions[cell] = -1;
+        size--;
+        if (position == size) {
+            return;
+        }
+        int last = heap[size];
+        heap[position] = last;
+        positions[last] = position;
+        siftDown(position);
+        siftUp(positions[last]);
+    }
+
+    /**
+     * Removes the cell with the minimal key
+     *
+     * @return removed cell
+     */
+    public int poll() {
+        int top = heap[0];
+        positions[top] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    /**
+     * Removes all cells. It takes time proportional to the size of the heap, not to the capacity
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int cell = heap[position];
+        double key = keys[cell];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keys[heap[parent]] <= key) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = cell;
+        positions[cell] = position;
+    }
+
+    private void siftDown(int position) {
+        int cell = heap[position];
+        double key = keys[cell];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) {
+                child++;
+            }
+            if (key <= keys[heap[child]]) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = cell;
+        positions[cell] = position;
+    }
+}
@@ -0,0 +1,36 @@
+package eduard.zaripov;
+
+/**
+ * Inspector on the board (for example Filch or the cat) with the square danger zone around him
+ */
+public class Inspector {
+    private final Coordinate position;
+    /**
+     * Radius of danger zone: all cells with both coordinates differing by at most radius
+     */
+    private final int radius;
+
+    /**
+     * @throws IllegalArgumentException if the radius is negative
+     */
+    public Inspector(Coordinate position, int radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Radius of inspector cannot be negative");
+        }
+        this.position = position;
+        this.radius = radius;
+    }
+
+    public Coordinate getPosition() {
+        return position;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    @Override
+    public String toString() {
+        return "Inspector(" + position + ", radius=" + radius + ")";
+    }
+}
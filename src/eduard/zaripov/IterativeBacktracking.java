@@ -0,0 +1,235 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The same algorithm as {@link Backtracking}, but without recursion
+ * <p>The current path is an explicit stack of cells. For each cell of the stack it keeps the cursor: the number of
+ * its neighbors already explored. The step of recursion is one of:</p>
+ * <p>* Take the next neighbor of the top cell and push it if it is safe and not in the path</p>
+ * <p>* If all neighbors of the top cell are explored, pop it</p>
+ * <p>The order of neighbors, bounds and checks are the same as in {@link Backtracking}, so both find the same paths
+ * and capture Harry on the same boards. The depth of the path is limited only by the size of the board, not by
+ * the stack of the thread</p>
+ */
+public class IterativeBacktracking implements FindPathInterface {
+    /**
+     * Results of entering the cell
+     */
+    private static final int NOT_FOUND = 0;
+    private static final int PUSHED = 1;
+    private static final int FOUND = 2;
+
+    /**
+     * Define if algorithm finds the first right way or the shortest
+     */
+    private final boolean isTheShortestPathNeeded;
+
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+    /**
+     * Min length founded length path
+     */
+    private int minLengthPath = Integer.MAX_VALUE;
+    private ArrayList<Coordinate> minPath = new ArrayList<>();
+    /**
+     * The least depth on which each cell was reached. Only for the shortest path
+     */
+    private int[] minDepth;
+    /**
+     * Coordinate of the subject to find
+     */
+    private int targetX;
+    private int targetY;
+
+    /**
+     * Cells of the current path and the number of explored neighbors of each of them
+     */
+    private int[] stackOfCells;
+    private int[] stackOfCursors;
+    private int sizeOfStack;
+
+    public IterativeBacktracking(boolean isTheShortestPathNeeded) {
+        this.isTheShortestPathNeeded = isTheShortestPathNeeded;
+    }
+
+    @Override
+    public String getName() {
+        return isTheShortestPathNeeded ? "IterativeBacktracking(shortest)" : "IterativeBacktracking(first)";
+    }
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    /**
+     * Initialize all needed fields and run iterative algorithm
+     *
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    @Override
+    public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        if (updateDetection) {
+            detectedDangerNodes.clear();
+        }
+        int numberOfCells = board.size() * board.size();
+        int[] previous = new int[numberOfCells];
+        Arrays.fill(previous, -1);
+        boolean[] isPath = new boolean[numberOfCells];
+        if (isTheShortestPathNeeded) {
+            minDepth = new int[numberOfCells];
+            Arrays.fill(minDepth, Integer.MAX_VALUE);
+        }
+        stackOfCells = new int[numberOfCells];
+        stackOfCursors = new int[numberOfCells];
+        sizeOfStack = 0;
+        targetX = board.getPositionOfSubject(subjectToFind).getX();
+        targetY = board.getPositionOfSubject(subjectToFind).getY();
+
+        minLengthPath = Integer.MAX_VALUE;
+        minPath.clear();
+        try {
+            findPathBacktrackingIterative(board, NeighborTable.forSize(board.size()), previous, isPath, board.index(startPosition), subjectToFind, isInvisible, mode);
+        } catch (InterruptedException e) {
+            return new ArrayList<>(minPath);
+        }
+        if (minPath.size() == 0) {
+            return null;
+        }
+        return new ArrayList<>(minPath);
+    }
+
+    /**
+     * Iterative algorithm. The length of path to the cell on the top of the stack is the size of the stack
+     *
+     * @param board       all info about cells in coordinates
+     * @param neighbors   neighbors of cells of the board
+     * @param previous    index of the previous cell in path for each cell, -1 if there is no previous cell
+     * @param isPath      flags whether the cell is in the current path
+     * @param start       index of the start cell
+     * @param isInvisible is Harry have a cloak
+     * @param mode        perception mode of Harry
+     * @throws HarryIsCapturedException if Harry lose
+     * @throws InterruptedException     if timeout of backtracking working
+     */
+    private void findPathBacktrackingIterative(Board board, NeighborTable neighbors, int[] previous, boolean[] isPath, int start, TypeOfCell subjectToFind, boolean isInvisible, Perception mode) throws HarryIsCapturedException, InterruptedException {
+        if (enter(0, board, previous, isPath, start, subjectToFind, isInvisible, mode) == FOUND) {
+            return;
+        }
+
+        while (sizeOfStack > 0) {
+            int cell = stackOfCells[sizeOfStack - 1];
+            int[] deltas = getDeltas(board, neighbors, cell);
+            int cursor = stackOfCursors[sizeOfStack - 1];
+
+            if (cursor < deltas.length) {
+                stackOfCursors[sizeOfStack - 1]++;
+                int next = cell + deltas[cursor];
+                if (!isPath[next]) {
+                    previous[next] = cell;
+                }
+
+                if (enter(sizeOfStack, board, previous, isPath, next, subjectToFind, isInvisible, mode) == FOUND && !isTheShortestPathNeeded) {
+                    return;
+                }
+            } else {
+                // All neighbors are explored, step back to the previous cell
+                isPath[cell] = false;
+                sizeOfStack--;
+                if (!detectedDangerNodes.contains(cell)) {
+                    throw new HarryIsCapturedException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the cell as the step of {@link Backtracking} does before exploring neighbors
+     *
+     * @param currentLength length of path to the cell
+     * @param cell          index of the cell
+     * @return FOUND if the cell is the subject and the path is saved, PUSHED if the cell is pushed to the stack and
+     * its neighbors should be explored or NOT_FOUND
+     * @throws HarryIsCapturedException if Harry lose
+     * @throws InterruptedException     if timeout of backtracking working
+     */
+    private int enter(int currentLength, Board board, int[] previous, boolean[] isPath, int cell, TypeOfCell subjectToFind, boolean isInvisible, Perception mode) throws HarryIsCapturedException, InterruptedException {
+        // It is needed for limit time of backtracking working
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedException("Thread interrupted");
+        }
+
+        if (board.contains(cell, subjectToFind)) {
+            if (board.isSafe(cell, isInvisible) && currentLength < minLengthPath) {
+                minLengthPath = currentLength;
+                minPath = restorePath(board, previous, cell);
+                previous[cell] = -1;
+
+                return FOUND;
+            }
+            return NOT_FOUND;
+        }
+
+        if (!board.isSafe(cell, isInvisible)) {
+            if (!detectedDangerNodes.contains(cell)) {
+                throw new HarryIsCapturedException();
+            }
+            return NOT_FOUND;
+        }
+
+        mode.detectDangerNodes(board, board.getX(cell), board.getY(cell), detectedDangerNodes);
+        if (isPath[cell]) {
+            return NOT_FOUND;
+        }
+        if (isTheShortestPathNeeded && !isWorthExploring(board, cell, currentLength)) {
+            return NOT_FOUND;
+        }
+        if (currentLength + 1 > minLengthPath) {
+            previous[cell] = -1;
+            return NOT_FOUND;
+        }
+
+        isPath[cell] = true;
+        stackOfCells[sizeOfStack] = cell;
+        stackOfCursors[sizeOfStack] = 0;
+        sizeOfStack++;
+        return PUSHED;
+    }
+
+    /**
+     * Neighbors of the cell in the same order as in {@link Backtracking}
+     */
+    private int[] getDeltas(Board board, NeighborTable neighbors, int cell) {
+        int x = board.getX(cell);
+        int y = board.getY(cell);
+        int endX = isTheShortestPathNeeded ? targetX : 0;
+        int endY = isTheShortestPathNeeded ? targetY : 0;
+        return neighbors.getDeltas(x, y, Integer.signum(endX - x), Integer.signum(endY - y));
+    }
+
+    /**
+     * Same bounds as in {@link Backtracking}
+     *
+     * @return false if the path through the cell cannot be shorter than the found path
+     */
+    private boolean isWorthExploring(Board board, int cell, int currentLength) {
+        if (currentLength >= minDepth[cell]) {
+            return false;
+        }
+        minDepth[cell] = currentLength;
+
+        int distanceToTarget = Math.max(Math.abs(targetX - board.getX(cell)), Math.abs(targetY - board.getY(cell)));
+        return currentLength + distanceToTarget < minLengthPath;
+    }
+}
@@ -0,0 +1,271 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+
+/**
+ * Algorithm for finding the shortest path from coordinate to subject using Jump Point Search
+ * <p>All moves of the board cost 1, including diagonal ones, so there are a lot of paths with the same length
+ * between two cells. Instead of adding all neighbors to the open set, the search jumps from the cell in one direction
+ * until something interesting: the subject, a cell near the unsafe cell which opens a new shortest path (forced
+ * neighbor), or, for the diagonal jump, a cell from which the straight jump finds such cell. Only these jump points
+ * are in the open set ({@link IndexedMinHeap} keyed by f = g + h with Chebyshev distance as h)</p>
+ * <p>The open set, the closed set, costs and previous jump points are buffers of {@link SearchArena} of the current
+ * thread, so the search doesn't allocate them for each call</p>
+ * <p>Harry goes through all cells of the jump, so he detects dangers from each of them. If the jump steps into the
+ * unsafe cell which Harry hasn't detected, he is captured. Detected unsafe cells are walls</p>
+ * <p>The path between two jump points is a straight or diagonal line, it is expanded to all cells of the line</p>
+ */
+public class JumpPointSearch implements FindPathInterface {
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+
+    /**
+     * State of the current call of {@link #findPath}
+     */
+    private Board board;
+    private TypeOfCell subjectToFind;
+    private boolean isInvisible;
+    private Perception mode;
+    /**
+     * Directions of the current jump point, filled by {@link #getDirections}
+     */
+    private final int[] directions = new int[8];
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    /**
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    @Override
+    public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        if (updateDetection) {
+            detectedDangerNodes.clear();
+        }
+        this.board = board;
+        this.subjectToFind = subjectToFind;
+        this.isInvisible = isInvisible;
+        this.mode = mode;
+
+        int sizeOfGrid = board.size();
+        int numberOfCells = sizeOfGrid * sizeOfGrid;
+        Coordinate target = board.getPositionOfSubject(subjectToFind);
+
+        SearchArena arena = SearchArena.current();
+        arena.prepare(numberOfCells);
+        int[] g = arena.getCosts(numberOfCells);
+        int[] previous = arena.getParent();
+        IndexedMinHeap open = arena.getHeap(numberOfCells);
+
+        int start = board.index(startPosition);
+        g[start] = 0;
+        previous[start] = -1;
+        mode.detectDangerNodes(board, startPosition.getX(), startPosition.getY(), detectedDangerNodes);
+        if (board.contains(start, subjectToFind)) {
+            return restorePath(board, previous, start);
+        }
+        open.push(start, getHeuristic(startPosition.getX(), startPosition.getY(), target));
+
+        while (!open.isEmpty()) {
+            int current = open.poll();
+            arena.markVisited(current);
+            int currentX = board.getX(current);
+            int currentY = board.getY(current);
+
+            if (board.contains(current, subjectToFind)) {
+                return expandPath(restorePath(board, previous, current));
+            }
+
+            int numberOfDirections = getDirections(current, previous[current]);
+            for (int i = 0; i < numberOfDirections; i++) {
+                int direction = directions[i];
+                int directionX = direction / 3 - 1;
+                int directionY = direction % 3 - 1;
+                int jumpPoint = jump(currentX, currentY, directionX, directionY);
+                if (jumpPoint == -1 || arena.isVisited(jumpPoint)) {
+                    continue;
+                }
+
+                int jumpX = board.getX(jumpPoint);
+                int jumpY = board.getY(jumpPoint);
+                int tentativeG = g[current] + Math.max(Math.abs(jumpX - currentX), Math.abs(jumpY - currentY));
+                if (open.contains(jumpPoint)) {
+                    if (tentativeG < g[jumpPoint]) {
+                        g[jumpPoint] = tentativeG;
+                        previous[jumpPoint] = current;
+                        open.decreaseKey(jumpPoint, tentativeG + getHeuristic(jumpX, jumpY, target));
+                    }
+                } else {
+                    g[jumpPoint] = tentativeG;
+                    previous[jumpPoint] = current;
+                    open.push(jumpPoint, tentativeG + getHeuristic(jumpX, jumpY, target));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fills {@link #directions} with directions to jump from the jump point. From the start all eight directions
+     * are needed. Otherwise, the natural directions (the same as the direction of the last jump, and its straight
+     * parts if it is diagonal) and directions to forced neighbors. Directions are encoded as
+     * 3 * (directionX + 1) + (directionY + 1)
+     *
+     * @param cell     index of the jump point
+     * @param previous index of the previous jump point or -1 for the start
+     * @return number of directions
+     */
+    private int getDirections(int cell, int previous) {
+        int x = board.getX(cell);
+        int y = board.getY(cell);
+        int numberOfDirections = 0;
+        if (previous == -1) {
+            for (int direction = 0; direction < 9; direction++) {
+                if (direction != 4) {
+                    directions[numberOfDirections++] = direction;
+                }
+            }
+            return numberOfDirections;
+        }
+        int directionX = Integer.signum(x - board.getX(previous));
+        int directionY = Integer.signum(y - board.getY(previous));
+
+        directions[numberOfDirections++] = encode(directionX, directionY);
+        if (directionX != 0 && directionY != 0) {
+            directions[numberOfDirections++] = encode(directionX, 0);
+            directions[numberOfDirections++] = encode(0, directionY);
+            if (isWall(x - directionX, y) && isFree(x - directionX, y + directionY)) {
+                directions[numberOfDirections++] = encode(-directionX, directionY);
+            }
+            if (isWall(x, y - directionY) && isFree(x + directionX, y - directionY)) {
+                directions[numberOfDirections++] = encode(directionX, -directionY);
+            }
+        } else if (directionX != 0) {
+            if (isWall(x, y + 1) && isFree(x + directionX, y + 1)) {
+                directions[numberOfDirections++] = encode(directionX, 1);
+            }
+            if (isWall(x, y - 1) && isFree(x + directionX, y - 1)) {
+                directions[numberOfDirections++] = encode(directionX, -1);
+            }
+        } else {
+            if (isWall(x + 1, y) && isFree(x + 1, y + directionY)) {
+                directions[numberOfDirections++] = encode(1, directionY);
+            }
+            if (isWall(x - 1, y) && isFree(x - 1, y + directionY)) {
+                directions[numberOfDirections++] = encode(-1, directionY);
+            }
+        }
+        return numberOfDirections;
+    }
+
+    /**
+     * Goes from the cell in the direction until the jump point
+     *
+     * @return index of the jump point or -1 if the jump ends in the wall or off the map
+     * @throws HarryIsCapturedException if the jump steps into the unsafe cell which is not detected
+     */
+    private int jump(int x, int y, int directionX, int directionY) throws HarryIsCapturedException {
+        while (true) {
+            x += directionX;
+            y += directionY;
+            if (!board.isInside(x, y)) {
+                return -1;
+            }
+            int cell = board.index(x, y);
+            if (!board.isSafe(cell, isInvisible)) {
+                if (!detectedDangerNodes.contains(cell)) {
+                    throw new HarryIsCapturedException();
+                }
+                return -1;
+            }
+            mode.detectDangerNodes(board, x, y, detectedDangerNodes);
+
+            if (board.contains(cell, subjectToFind)) {
+                return cell;
+            }
+
+            if (directionX != 0 && directionY != 0) {
+                if ((isWall(x - directionX, y) && isFree(x - directionX, y + directionY)) ||
+                        (isWall(x, y - directionY) && isFree(x + directionX, y - directionY))) {
+                    return cell;
+                }
+                // Straight jumps from each cell of the diagonal one
+                if (jump(x, y, directionX, 0) != -1 || jump(x, y, 0, directionY) != -1) {
+                    return cell;
+                }
+            } else if (directionX != 0) {
+                if ((isWall(x, y + 1) && isFree(x + directionX, y + 1)) ||
+                        (isWall(x, y - 1) && isFree(x + directionX, y - 1))) {
+                    return cell;
+                }
+            } else {
+                if ((isWall(x + 1, y) && isFree(x + 1, y + directionY)) ||
+                        (isWall(x - 1, y) && isFree(x - 1, y + directionY))) {
+                    return cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true if the cell is unsafe for Harry. Cells off the map are walls too
+     */
+    private boolean isWall(int x, int y) {
+        return !board.isInside(x, y) || !board.isSafe(board.index(x, y), isInvisible);
+    }
+
+    private boolean isFree(int x, int y) {
+        return board.isInside(x, y) && board.isSafe(board.index(x, y), isInvisible);
+    }
+
+    private static int encode(int directionX, int directionY) {
+        return 3 * (directionX + 1) + (directionY + 1);
+    }
+
+    /**
+     * Adds all cells between neighboring jump points
+     *
+     * @param jumpPoints path from jump point to jump point
+     * @return path from cell to cell
+     */
+    private ArrayList<Coordinate> expandPath(ArrayList<Coordinate> jumpPoints) {
+        ArrayList<Coordinate> path = new ArrayList<>();
+        path.add(jumpPoints.get(0));
+        for (int i = 1; i < jumpPoints.size(); i++) {
+            Coordinate from = jumpPoints.get(i - 1);
+            Coordinate to = jumpPoints.get(i);
+            int directionX = Integer.signum(to.getX() - from.getX());
+            int directionY = Integer.signum(to.getY() - from.getY());
+            int x = from.getX();
+            int y = from.getY();
+            while (x != to.getX() || y != to.getY()) {
+                x += directionX;
+                y += directionY;
+                path.add(new Coordinate(x, y));
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Chebyshev distance from the cell to the end position. It is the length of the path without walls
+     * <p>A lot of jump points have the same f, so a small part of h is added once more: from points with the same
+     * f the one closer to the end position is taken first. The part is less than 1 and doesn't change the order of
+     * different f</p>
+     */
+    private double getHeuristic(int x, int y, Coordinate endPosition) {
+        int distance = Math.max(Math.abs(x - endPosition.getX()), Math.abs(y - endPosition.getY()));
+        return distance + (double) distance / (2 * board.size());
+    }
+}
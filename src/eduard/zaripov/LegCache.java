@@ -0,0 +1,142 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of paths between checkpoints of scenarios (legs) for one board
+ * <p>Scenarios share legs, for example HARRY -> BOOK is the first leg of two scenarios, and the same scenarios are
+ * calculated again by each call of {@link Solution#findPath(FindPathInterface)}. The result of the leg depends on
+ * the search, start, subject, cloak, perception and cells detected before the leg, so all of them are in the key.
+ * The leg also changes detected cells of the search, so the cache keeps them too and restores them on hit</p>
+ * <p>Searches which don't keep detected cells ({@link FindPathInterface#getDetectedDangers()} returns null) and
+ * interrupted searches are not cached</p>
+ */
+public class LegCache {
+    /**
+     * Everything the result of the leg depends on
+     */
+    private static class Key {
+        private final String nameOfSearch;
+        private final Coordinate startPosition;
+        private final TypeOfCell subjectToFind;
+        private final boolean isInvisible;
+        private final Perception mode;
+        private final DetectedDangers detectedBefore;
+
+        Key(String nameOfSearch, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, DetectedDangers detectedBefore) {
+            this.nameOfSearch = nameOfSearch;
+            this.startPosition = startPosition;
+            this.subjectToFind = subjectToFind;
+            this.isInvisible = isInvisible;
+            this.mode = mode;
+            this.detectedBefore = detectedBefore;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return isInvisible == key.isInvisible && nameOfSearch.equals(key.nameOfSearch) &&
+                    startPosition.equals(key.startPosition) && subjectToFind == key.subjectToFind &&
+                    mode.equals(key.mode) && detectedBefore.equals(key.detectedBefore);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(nameOfSearch, startPosition, subjectToFind, isInvisible, mode, detectedBefore);
+        }
+    }
+
+    /**
+     * Result of the leg
+     */
+    private static class Leg {
+        /**
+         * Path or null if there is no path
+         */
+        private final ArrayList<Coordinate> path;
+        private final boolean isCaptured;
+        private final DetectedDangers detectedAfter;
+
+        Leg(ArrayList<Coordinate> path, boolean isCaptured, DetectedDangers detectedAfter) {
+            this.path = path;
+            this.isCaptured = isCaptured;
+            this.detectedAfter = detectedAfter;
+        }
+    }
+
+    private final ConcurrentHashMap<Key, Leg> legs = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Same as {@link FindPathInterface#findPath(Board, Coordinate, TypeOfCell, boolean, Perception, boolean)}, but
+     * returns the cached path if the same leg was already calculated. The board should be the same for all calls
+     *
+     * @param typeOfSearch search to find path if the leg is not in the cache
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    public ArrayList<Coordinate> findPath(FindPathInterface typeOfSearch, Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        DetectedDangers detectedDangers = typeOfSearch.getDetectedDangers();
+        if (detectedDangers == null) {
+            return typeOfSearch.findPath(board, startPosition, subjectToFind, isInvisible, mode, updateDetection);
+        }
+        if (updateDetection) {
+            detectedDangers.clear();
+        }
+
+        Key key = new Key(typeOfSearch.getName(), startPosition, subjectToFind, isInvisible, mode, detectedDangers.copy());
+        Leg leg = legs.get(key);
+        if (leg != null) {
+            hits.increment();
+            detectedDangers.copyFrom(leg.detectedAfter);
+            if (leg.isCaptured) {
+                throw new HarryIsCapturedException();
+            }
+            return leg.path == null ? null : new ArrayList<>(leg.path);
+        }
+
+        misses.increment();
+        ArrayList<Coordinate> path;
+        try {
+            path = typeOfSearch.findPath(board, startPosition, subjectToFind, isInvisible, mode, false);
+        } catch (HarryIsCapturedException e) {
+            if (!Thread.currentThread().isInterrupted()) {
+                legs.putIfAbsent(key, new Leg(null, true, detectedDangers.copy()));
+            }
+            throw e;
+        }
+        if (!Thread.currentThread().isInterrupted()) {
+            legs.putIfAbsent(key, new Leg(path == null ? null : new ArrayList<>(path), false, detectedDangers.copy()));
+        }
+        return path;
+    }
+
+    /**
+     * @return number of legs taken from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of legs calculated by search
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Removes all legs and resets counters
+     */
+    public void clear() {
+        legs.clear();
+        hits.reset();
+        misses.reset();
+    }
+}
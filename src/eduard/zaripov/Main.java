@@ -21,7 +21,11 @@ public class Main {
         }
     }
 
-    public static void main(String[] args) throws ExecutionException, InterruptedException, FileNotFoundException {
+    public static void main(String[] args) throws ExecutionException, InterruptedException, IOException {
+        if (args != null && args.length > 0 && args[0].equals("--server")) {
+            runServer(args);
+            return;
+        }
         try {
             int inputMode = IO.readInputMode();
             Solution solution;
@@ -51,7 +55,9 @@ public class Main {
 
             // For timeout tracking
             ExecutorService service = Executors.newSingleThreadExecutor();
-            Future<?> future = service.submit(() -> pathBacktracking.set(solution.findPath(new Backtracking(isBacktrackingFindShortestPath))));
+            // Scenarios of backtracking are calculated in parallel
+            ExecutorService scenarioService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            Future<?> future = service.submit(() -> pathBacktracking.set(solution.findPath(() -> new Backtracking(isBacktrackingFindShortestPath), scenarioService)));
             try {
                 IO.printString("Backtracking started..");
                 future.get(maxTimeoutOfBacktracking, TimeUnit.SECONDS);
@@ -61,6 +67,7 @@ public class Main {
                 IO.printString("Timeout!");
             }
             service.shutdownNow();
+            scenarioService.shutdownNow();
             long endStamp = System.currentTimeMillis();
             printInfoAboutPath(solution, pathBacktracking.get(), "Backtracking", endStamp - startStamp);
 
@@ -75,6 +82,21 @@ public class Main {
             ArrayList<ArrayList<Coordinate>> pathAStar = solution.findPath(new AStar());
             endStamp = System.currentTimeMillis();
             printInfoAboutPath(solution, pathAStar, "A*", endStamp - startStamp);
+
+            startStamp = System.currentTimeMillis();
+            ArrayList<ArrayList<Coordinate>> pathDialAStar = solution.findPath(new DialAStar());
+            endStamp = System.currentTimeMillis();
+            printInfoAboutPath(solution, pathDialAStar, "A* with buckets", endStamp - startStamp);
+
+            startStamp = System.currentTimeMillis();
+            ArrayList<ArrayList<Coordinate>> pathJumpPointSearch = solution.findPath(new JumpPointSearch());
+            endStamp = System.currentTimeMillis();
+            printInfoAboutPath(solution, pathJumpPointSearch, "Jump Point Search", endStamp - startStamp);
+
+            startStamp = System.currentTimeMillis();
+            ArrayList<ArrayList<Coordinate>> pathDistanceFields = solution.findPathByDistanceFields();
+            endStamp = System.currentTimeMillis();
+            printInfoAboutPath(solution, pathDistanceFields, "Distance fields", endStamp - startStamp);
         }
         catch (NumberFormatException | IllegalInputCoordinate e) {
             IO.printString("Illegal input: " + e.getMessage());
@@ -85,6 +107,28 @@ public class Main {
 
     }
 
+    /**
+     * Runs {@link SolverServer} until the process is stopped
+     *
+     * @param args "--server" and optionally the port
+     */
+    private static void runServer(String[] args) throws IOException {
+        int port = SolverServer.DEFAULT_PORT;
+        if (args.length > 1) {
+            try {
+                port = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                IO.printString("Illegal port: " + args[1]);
+                return;
+            }
+        }
+        try (SolverServer server = new SolverServer(port, Runtime.getRuntime().availableProcessors())) {
+            IO.printString("Solver server is listening on port " + server.getPort());
+            IO.printString("Algorithms: " + String.join(", ", SolverServer.getNamesOfAlgorithms()));
+            server.serve();
+        }
+    }
+
     public static int calculatePathLength(ArrayList<ArrayList<Coordinate>> path) {
         int length = 0;
         for (ArrayList<Coordinate> partOfThePath : path) {
@@ -0,0 +1,112 @@
+package eduard.zaripov;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Precomputed neighbors of cells for the board of some size
+ * <p>Neighbor of the cell is the cell index plus some delta (see {@link Board#index(int, int)}). All interior cells
+ * have the same eight deltas, cells on the border have fewer. So each cell belongs to one of nine classes:
+ * first, interior or last row combined with first, interior or last column, and the table keeps the deltas for
+ * each class. Getting the neighbors is a couple of comparisons and an array read, without any allocation
+ * and bounds checks for each neighbor</p>
+ */
+public class NeighborTable {
+    /**
+     * Tables are shared between all finders, one per size of board
+     */
+    private static final ConcurrentHashMap<Integer, NeighborTable> tables = new ConcurrentHashMap<>();
+
+    private final int sizeOfGrid;
+    /**
+     * Deltas of neighbors in the same order as {@link FindPathInterface#getNeighbors(Coordinate, int)}: by X from -1
+     * to 1, then by Y from -1 to 1. Indexed by class of cell
+     */
+    private final int[][] deltas = new int[9][];
+    /**
+     * Deltas of neighbors ordered by priority of direction (see {@link #getDeltas(int, int, int, int)}).
+     * Indexed by class of cell and then by 3 * (signX + 1) + (signY + 1)
+     */
+    private final int[][][] orderedDeltas = new int[9][9][];
+
+    private NeighborTable(int sizeOfGrid) {
+        this.sizeOfGrid = sizeOfGrid;
+        int[] representatives = {0, 1, sizeOfGrid - 1};
+        for (int classOfRow = 0; classOfRow < 3; classOfRow++) {
+            for (int classOfColumn = 0; classOfColumn < 3; classOfColumn++) {
+                int x = representatives[classOfRow];
+                int y = representatives[classOfColumn];
+                int classOfCell = 3 * classOfRow + classOfColumn;
+                deltas[classOfCell] = createDeltas(x, y, new int[]{-1, 0, 1}, new int[]{-1, 0, 1});
+                for (int signX = -1; signX <= 1; signX++) {
+                    for (int signY = -1; signY <= 1; signY++) {
+                        orderedDeltas[classOfCell][3 * (signX + 1) + (signY + 1)] =
+                                createDeltas(x, y, getPriority(signX), getPriority(signY));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param sizeOfGrid length of one row (or column)
+     * @return table for the board of this size
+     */
+    public static NeighborTable forSize(int sizeOfGrid) {
+        return tables.computeIfAbsent(sizeOfGrid, NeighborTable::new);
+    }
+
+    /**
+     * Deltas of all neighbors of the cell that don't go off the map. The returned array shouldn't be changed
+     *
+     * @param x X of the cell
+     * @param y Y of the cell
+     * @return deltas to add to the index of the cell
+     */
+    public int[] getDeltas(int x, int y) {
+        return deltas[classOf(x, y)];
+    }
+
+    /**
+     * Same as {@link #getDeltas(int, int)}, but ordered by priority of direction for each coordinate: the move by the
+     * sign goes first, then the move by 0, then the opposite move. If the sign is 0: 0, +1, -1. The moves by X are
+     * the outer loop. The returned array shouldn't be changed
+     *
+     * @param signX preferred direction by X: -1, 0 or 1
+     * @param signY preferred direction by Y: -1, 0 or 1
+     */
+    public int[] getDeltas(int x, int y, int signX, int signY) {
+        return orderedDeltas[classOf(x, y)][3 * (signX + 1) + (signY + 1)];
+    }
+
+    private int classOf(int x, int y) {
+        int classOfRow = x == 0 ? 0 : (x == sizeOfGrid - 1 ? 2 : 1);
+        int classOfColumn = y == 0 ? 0 : (y == sizeOfGrid - 1 ? 2 : 1);
+        return 3 * classOfRow + classOfColumn;
+    }
+
+    private int[] createDeltas(int x, int y, int[] operationsX, int[] operationsY) {
+        int[] result = new int[8];
+        int numberOfDeltas = 0;
+        for (int operationX : operationsX) {
+            for (int operationY : operationsY) {
+                if (operationX == 0 && operationY == 0) {
+                    continue;
+                }
+                if (x + operationX < 0 || x + operationX >= sizeOfGrid || y + operationY < 0 || y + operationY >= sizeOfGrid) {
+                    continue;
+                }
+                result[numberOfDeltas++] = operationX * sizeOfGrid + operationY;
+            }
+        }
+        int[] trimmed = new int[numberOfDeltas];
+        System.arraycopy(result, 0, trimmed, 0, numberOfDeltas);
+        return trimmed;
+    }
+
+    private static int[] getPriority(int sign) {
+        if (sign == 0) {
+            return new int[]{0, +1, -1};
+        }
+        return new int[]{sign, 0, -sign};
+    }
+}
@@ -0,0 +1,274 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Backtracking for the shortest path which explores the search tree on all threads of {@link ForkJoinPool}
+ * <p>The steps are the same as in {@link Backtracking} with the shortest path needed, including branch and bound.
+ * The first levels of the tree are split into tasks: each move from the cell of such level is a new task with its
+ * own copy of the current path and detected cells. Deeper levels are explored by the task itself. All tasks share
+ * the found path and the least depth of each cell, so the path found by one task cuts the branches of others</p>
+ * <p>When the tasks are finished, cells detected by all of them are detected by the search. Harry is captured if any
+ * task steps into the danger cell which it hasn't detected</p>
+ */
+public class ParallelBacktracking implements FindPathInterface {
+    /**
+     * Moves from the cells on the depth less than this are explored by new tasks. Each task copies arrays of the
+     * board size, so the number of tasks (up to 8 ^ depth) should be small
+     */
+    private static final int SPLIT_DEPTH = 2;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * For save detected nodes if we have complex path. For example: start -> book -> exit
+     */
+    private final DetectedDangers detectedDangerNodes = new DetectedDangers();
+
+    /**
+     * Search on the common pool
+     */
+    public ParallelBacktracking() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool pool to run the tasks on
+     */
+    public ParallelBacktracking(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        // The path has the same length as of the sequential one, but it can be another path of this length
+        return "Backtracking(parallel)";
+    }
+
+    @Override
+    public DetectedDangers getDetectedDangers() {
+        return detectedDangerNodes;
+    }
+
+    /**
+     * Runs the root task on the pool and waits for all tasks
+     *
+     * @param board           all info about cells in coordinates
+     * @param startPosition   position of start
+     * @param subjectToFind   subject to find
+     * @param isInvisible     If isInvisible is true, it can go through Danger {@link TypeOfCell}
+     * @param mode            Type of perception of harry vision
+     * @param updateDetection If true clear all detected nodes as danger
+     * @return path as a list of coordinates or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    @Override
+    public ArrayList<Coordinate> findPath(Board board, Coordinate startPosition, TypeOfCell subjectToFind, boolean isInvisible, Perception mode, boolean updateDetection) throws HarryIsCapturedException {
+        if (updateDetection) {
+            detectedDangerNodes.clear();
+        }
+        int numberOfCells = board.size() * board.size();
+        Search search = new Search(board, subjectToFind, isInvisible, mode);
+        int[] previous = new int[numberOfCells];
+        Arrays.fill(previous, -1);
+        BranchTask root = new BranchTask(search, board.index(startPosition), 0, previous, new boolean[numberOfCells], detectedDangerNodes.copy());
+
+        ForkJoinTask<Void> task = pool.submit(root);
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            // It is needed for limit time of backtracking working. Tasks stop themselves after the flag
+            search.isCancelled = true;
+            Thread.currentThread().interrupt();
+            return search.getMinPath();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CaptureSignal) {
+                throw new HarryIsCapturedException();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        detectedDangerNodes.copyFrom(root.detectedDangerNodes);
+
+        ArrayList<Coordinate> minPath = search.getMinPath();
+        if (minPath.size() == 0) {
+            return null;
+        }
+        return minPath;
+    }
+
+    /**
+     * {@link HarryIsCapturedException} is checked, so tasks throw this one
+     */
+    private static class CaptureSignal extends RuntimeException {
+    }
+
+    /**
+     * State of one call of {@link #findPath} shared by all its tasks
+     */
+    private class Search {
+        private final Board board;
+        private final NeighborTable neighbors;
+        private final TypeOfCell subjectToFind;
+        private final boolean isInvisible;
+        private final Perception mode;
+        /**
+         * Coordinate of the subject to find
+         */
+        private final int targetX;
+        private final int targetY;
+        /**
+         * The least depth of recursion on which each cell was reached by any task
+         */
+        private final AtomicIntegerArray minDepth;
+
+        private volatile int minLengthPath = Integer.MAX_VALUE;
+        private ArrayList<Coordinate> minPath = new ArrayList<>();
+        private volatile boolean isCancelled = false;
+
+        Search(Board board, TypeOfCell subjectToFind, boolean isInvisible, Perception mode) {
+            this.board = board;
+            this.neighbors = NeighborTable.forSize(board.size());
+            this.subjectToFind = subjectToFind;
+            this.isInvisible = isInvisible;
+            this.mode = mode;
+            this.targetX = board.getPositionOfSubject(subjectToFind).getX();
+            this.targetY = board.getPositionOfSubject(subjectToFind).getY();
+            this.minDepth = new AtomicIntegerArray(board.size() * board.size());
+            for (int i = 0; i < minDepth.length(); i++) {
+                minDepth.set(i, Integer.MAX_VALUE);
+            }
+        }
+
+        /**
+         * Saves the path to the subject if it is shorter than the found one
+         */
+        synchronized void offerPath(int currentLength, int[] previous, int cell) {
+            if (currentLength < minLengthPath) {
+                minPath = restorePath(board, previous, cell);
+                minLengthPath = currentLength;
+            }
+        }
+
+        synchronized ArrayList<Coordinate> getMinPath() {
+            return new ArrayList<>(minPath);
+        }
+
+        /**
+         * Same bounds as in {@link Backtracking}, the least depth of the cell is updated atomically
+         *
+         * @return false if the path through the cell cannot be shorter than the found path
+         */
+        boolean isWorthExploring(int cell, int x, int y, int currentLength) {
+            int depth = minDepth.get(cell);
+            while (currentLength < depth) {
+                if (minDepth.compareAndSet(cell, depth, currentLength)) {
+                    int distanceToTarget = Math.max(Math.abs(targetX - x), Math.abs(targetY - y));
+                    return currentLength + distanceToTarget < minLengthPath;
+                }
+                depth = minDepth.get(cell);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Explores the subtree of the cell with its own path and detected cells
+     */
+    private class BranchTask extends RecursiveAction {
+        private final Search search;
+        private final int cell;
+        private final int currentLength;
+        private final int[] previous;
+        private final boolean[] isPath;
+        private final DetectedDangers detectedDangerNodes;
+
+        BranchTask(Search search, int cell, int currentLength, int[] previous, boolean[] isPath, DetectedDangers detectedDangerNodes) {
+            this.search = search;
+            this.cell = cell;
+            this.currentLength = currentLength;
+            this.previous = previous;
+            this.isPath = isPath;
+            this.detectedDangerNodes = detectedDangerNodes;
+        }
+
+        @Override
+        protected void compute() {
+            findPathBacktrackingRecursive(currentLength, cell);
+        }
+
+        /**
+         * Same step as in {@link Backtracking}, but moves on the depth less than {@link #SPLIT_DEPTH} are new tasks
+         *
+         * @param currentLength the depth of recursive which is also current length of path
+         * @param cell          index of the current cell
+         */
+        private void findPathBacktrackingRecursive(int currentLength, int cell) {
+            if (search.isCancelled) {
+                return;
+            }
+            Board board = search.board;
+
+            if (board.contains(cell, search.subjectToFind)) {
+                if (board.isSafe(cell, search.isInvisible) && currentLength < search.minLengthPath) {
+                    search.offerPath(currentLength, previous, cell);
+                    previous[cell] = -1;
+                }
+                return;
+            }
+
+            if (board.isSafe(cell, search.isInvisible)) {
+                int x = board.getX(cell);
+                int y = board.getY(cell);
+                search.mode.detectDangerNodes(board, x, y, detectedDangerNodes);
+
+                if (isPath[cell] || !search.isWorthExploring(cell, x, y, currentLength)) {
+                    return;
+                }
+
+                isPath[cell] = true;
+                currentLength++;
+                if (currentLength > search.minLengthPath) {
+                    isPath[cell] = false;
+                    previous[cell] = -1;
+                    return;
+                }
+
+                int[] deltas = search.neighbors.getDeltas(x, y, Integer.signum(search.targetX - x), Integer.signum(search.targetY - y));
+                if (currentLength <= SPLIT_DEPTH) {
+                    ArrayList<BranchTask> branches = new ArrayList<>(deltas.length);
+                    for (int delta : deltas) {
+                        int next = cell + delta;
+                        int[] previousOfBranch = previous.clone();
+                        if (!isPath[next]) {
+                            previousOfBranch[next] = cell;
+                        }
+                        branches.add(new BranchTask(search, next, currentLength, previousOfBranch, isPath.clone(), detectedDangerNodes.copy()));
+                    }
+                    invokeAll(branches);
+                    for (BranchTask branch : branches) {
+                        detectedDangerNodes.addAll(branch.detectedDangerNodes);
+                    }
+                } else {
+                    for (int delta : deltas) {
+                        int next = cell + delta;
+                        if (!isPath[next]) {
+                            previous[next] = cell;
+                        }
+                        findPathBacktrackingRecursive(currentLength, next);
+                    }
+                }
+                isPath[cell] = false;
+            }
+
+            if (!detectedDangerNodes.contains(cell)) {
+                throw new CaptureSignal();
+            }
+        }
+    }
+}
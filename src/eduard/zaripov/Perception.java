@@ -12,15 +12,69 @@ import java.util.ArrayList;
  * <p>V D H D V</p>
  * <p>V D D D V</p>
  * <p>D V V V D</p>
+ * <p>The same works for any radius: Harry sees the border of the square without its corners. With radius 1 he sees
+ * all eight neighbors. Other shapes of vision are given by {@link VisionMask}. Cells of each configuration are
+ * calculated once</p>
  */
 public class Perception {
     /**
      * Radius of view
      */
     private final int radius;
+    /**
+     * Cells which Harry sees
+     */
+    private final VisionMask mask;
 
+    /**
+     * @param radius radius of view, at least 1
+     * @throws IllegalArgumentException if the radius is less than 1
+     */
     public Perception(int radius) {
-        this.radius = radius;
+        this(VisionMask.forRadius(radius));
+    }
+
+    /**
+     * Harry sees cells of the mask, for example {@code new Perception(VisionMask.of(VisionMask.Shape.DIAMOND, 3, false))}
+     */
+    public Perception(VisionMask mask) {
+        this.mask = mask;
+        this.radius = mask.getRadius();
+    }
+
+    /**
+     * @return the greatest distance from Harry to the cell he sees by X or Y
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    public VisionMask getMask() {
+        return mask;
+    }
+
+    /**
+     * @return maximum number of cells detected from one position, enough size of the buffer for
+     * {@link #detectDangerNodes(Board, int, int, int[])}
+     */
+    public int getMaxNumberOfDetected() {
+        return mask.getNumberOfCells();
+    }
+
+    /**
+     * Equals if the masks equal
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Perception that = (Perception) o;
+        return mask.equals(that.mask);
+    }
+
+    @Override
+    public int hashCode() {
+        return mask.hashCode();
     }
 
     /**
@@ -32,45 +86,90 @@ public class Perception {
      */
     public ArrayList<Coordinate> detectDangerNodes(Board board, Coordinate coordinate) {
         ArrayList<Coordinate> dangerNodes = new ArrayList<>();
-        if (radius == 1) {
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (i == 0 && j == 0) {
-                        continue;
-                    }
-                    dangerNodes.add(new Coordinate(coordinate.getX() + i, coordinate.getY() + j));
+        int X = coordinate.getX();
+        int Y = coordinate.getY();
+        if (mask.isEverythingVisible()) {
+            for (int segment = 0; segment < mask.getNumberOfSegments(); segment++) {
+                for (int j = mask.getFromDeltaY(segment); j <= mask.getToDeltaY(segment); j++) {
+                    dangerNodes.add(new Coordinate(X + mask.getDeltaX(segment), Y + j));
                 }
             }
-        } else if (radius == 2) {
-            int X = coordinate.getX();
-            int Y = coordinate.getY();
-            for (int i = -1; i <= 1; i++) {
-                if (X + i >= 0 && X + i < board.size() && Y + 2 >= 0 && Y + 2 < board.size()) {
-                    if (board.getCell(new Coordinate(X + i, Y + 2)).isDangerOrInspector()) {
-                        dangerNodes.add(new Coordinate(X + i, Y + 2));
-                    }
-                }
-                if (X + 2 >= 0 && X + 2 < board.size() && Y + i >= 0 && Y + i < board.size()) {
-                    if (board.getCell(new Coordinate(X + 2, Y + i)).isDangerOrInspector()) {
-                        dangerNodes.add(new Coordinate(X + 2, Y + i));
-                    }
-                }
-                if (X + i >= 0 && X + i < board.size() && Y - 2 >= 0 && Y - 2 < board.size()) {
-                    if (board.getCell(new Coordinate(X + i, Y - 2)).isDangerOrInspector()) {
-                        dangerNodes.add(new Coordinate(X + i, Y - 2));
-                    }
+        } else {
+            int[] buffer = new int[getMaxNumberOfDetected()];
+            int count = detectDangerNodes(board, X, Y, buffer);
+            for (int i = 0; i < count; i++) {
+                dangerNodes.add(board.toCoordinate(buffer[i]));
+            }
+        }
+        return dangerNodes;
+    }
+
+    /**
+     * Same as {@link #detectDangerNodes(Board, Coordinate)}, but adds detected nodes to the input set instead of
+     * creating a list. Nodes out of the board are skipped
+     *
+     * @param board    info about nodes in coordinates
+     * @param x        X of Harry
+     * @param y        Y of Harry
+     * @param detected set to add detected nodes
+     */
+    public void detectDangerNodes(Board board, int x, int y, DetectedDangers detected) {
+        detect(board, x, y, detected, null);
+    }
+
+    /**
+     * Same as {@link #detectDangerNodes(Board, int, int, DetectedDangers)}, but writes indexes of detected nodes to
+     * the buffer
+     *
+     * @param board  info about nodes in coordinates
+     * @param x      X of Harry
+     * @param y      Y of Harry
+     * @param buffer array for indexes of detected nodes, at least {@link #getMaxNumberOfDetected()} long
+     * @return number of detected nodes written to the buffer
+     */
+    public int detectDangerNodes(Board board, int x, int y, int[] buffer) {
+        return detect(board, x, y, null, buffer);
+    }
+
+    /**
+     * Goes through segments of the mask cut by the board. If Harry notices only dangers, the segment is checked
+     * with {@link Board#getDangerBits(int, int, int)} by 64 cells at once
+     *
+     * @return number of detected nodes
+     */
+    private int detect(Board board, int x, int y, DetectedDangers detected, int[] buffer) {
+        int count = 0;
+        for (int segment = 0; segment < mask.getNumberOfSegments(); segment++) {
+            int row = x + mask.getDeltaX(segment);
+            if (row < 0 || row >= board.size()) {
+                continue;
+            }
+            int fromColumn = Math.max(y + mask.getFromDeltaY(segment), 0);
+            int toColumn = Math.min(y + mask.getToDeltaY(segment), board.size() - 1);
+
+            if (mask.isEverythingVisible()) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    count = report(board.index(row, column), detected, buffer, count);
                 }
-                if (X - 2 >= 0 && X - 2 < board.size() && Y + i >= 0 && Y + i < board.size()) {
-                    if (board.getCell(new Coordinate(X - 2, Y + i)).isDangerOrInspector()) {
-                        dangerNodes.add(new Coordinate(X - 2, Y + i));
-                    }
+                continue;
+            }
+            for (int column = fromColumn; column <= toColumn; column += 64) {
+                long bits = board.getDangerBits(row, column, Math.min(column + 63, toColumn));
+                while (bits != 0) {
+                    count = report(board.index(row, column + Long.numberOfTrailingZeros(bits)), detected, buffer, count);
+                    bits &= bits - 1;
                 }
             }
-        } else {
-            // In case of future extension
-            throw new IllegalArgumentException("No support radius > 2");
         }
-        return dangerNodes;
+        return count;
     }
 
+    private int report(int cell, DetectedDangers detected, int[] buffer, int count) {
+        if (detected != null) {
+            detected.add(cell);
+        } else {
+            buffer[count] = cell;
+        }
+        return count + 1;
+    }
 }
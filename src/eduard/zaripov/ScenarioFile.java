@@ -0,0 +1,151 @@
+package eduard.zaripov;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary file of inputs. All records have the same size, so the file is read through the memory mapping without
+ * parsing
+ * <p>The file starts with the header: magic number "HSCN" (4 bytes), version (2 bytes) and size of the record
+ * (2 bytes). Each record is six coordinates as X and Y of 2 bytes each in the same order as
+ * {@link IO#parseCoordinates(String)} returns, the radius of Harry vision (1 byte) and 3 reserved bytes.
+ * Numbers are big-endian</p>
+ */
+public class ScenarioFile {
+    static final int MAGIC = 0x4853434E;
+    static final short VERSION = 1;
+    static final int SIZE_OF_HEADER = 8;
+    static final int SIZE_OF_RECORD = 28;
+    private static final int NUMBER_OF_VALUES = 12;
+    /**
+     * Number of records mapped at once. The mapped part can't be greater than 2 GB
+     */
+    private static final int RECORDS_PER_PART = (1 << 30) / SIZE_OF_RECORD;
+    private static final int RECORDS_PER_BLOCK = 4096;
+
+    /**
+     * Writes inputs to the new binary file. It can be passed to {@link ScenarioParser} to convert the text file
+     */
+    public static class Writer implements ScenarioVisitor, AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(SIZE_OF_RECORD * RECORDS_PER_BLOCK);
+        private long numberOfRecords;
+
+        /**
+         * Creates the file or replaces the existing one
+         *
+         * @throws IOException if the file can't be written
+         */
+        public Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            buffer.putInt(MAGIC).putShort(VERSION).putShort((short) SIZE_OF_RECORD);
+        }
+
+        /**
+         * Writes one record. The record is checked before writing, so the wrong record isn't written at all and the
+         * file stays correct
+         *
+         * @throws IllegalArgumentException if the coordinate doesn't fit in 2 bytes or the radius doesn't fit in 1 byte
+         */
+        @Override
+        public void visit(int[] coordinates, int radius) throws IOException {
+            for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+                if (coordinates[i] < Short.MIN_VALUE || coordinates[i] > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Coordinate " + coordinates[i] + " is too big for the file");
+                }
+            }
+            if (radius < 0 || radius > 255) {
+                throw new IllegalArgumentException("Radius " + radius + " is too big for the file");
+            }
+
+            if (buffer.remaining() < SIZE_OF_RECORD) {
+                flush();
+            }
+            for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+                buffer.putShort((short) coordinates[i]);
+            }
+            buffer.put((byte) radius);
+            buffer.put((byte) 0).put((byte) 0).put((byte) 0);
+            numberOfRecords++;
+        }
+
+        public long getNumberOfRecords() {
+            return numberOfRecords;
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    /**
+     * Reads all records of the file
+     *
+     * @param file    file to read
+     * @param visitor is called for each record
+     * @return number of records
+     * @throws IOException if the file can't be read or it is not the file of inputs
+     */
+    public static long read(Path file, ScenarioVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(SIZE_OF_HEADER);
+            while (header.hasRemaining() && channel.read(header) != -1) {
+                // read the whole header
+            }
+            if (header.position() != SIZE_OF_HEADER || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a file of inputs: " + file);
+            }
+            if (header.getShort(4) != VERSION || header.getShort(6) != SIZE_OF_RECORD) {
+                throw new IOException("Unsupported version of the file: " + file);
+            }
+            long sizeOfRecords = channel.size() - SIZE_OF_HEADER;
+            if (sizeOfRecords % SIZE_OF_RECORD != 0) {
+                throw new IOException("The file is truncated: " + file);
+            }
+
+            long numberOfRecords = sizeOfRecords / SIZE_OF_RECORD;
+            int[] coordinates = new int[NUMBER_OF_VALUES];
+            for (long first = 0; first < numberOfRecords; first += RECORDS_PER_PART) {
+                int recordsInPart = (int) Math.min(RECORDS_PER_PART, numberOfRecords - first);
+                MappedByteBuffer part = channel.map(FileChannel.MapMode.READ_ONLY, SIZE_OF_HEADER + first * SIZE_OF_RECORD, (long) recordsInPart * SIZE_OF_RECORD);
+                for (int record = 0, offset = 0; record < recordsInPart; record++, offset += SIZE_OF_RECORD) {
+                    for (int i = 0; i < NUMBER_OF_VALUES; i++) {
+                        coordinates[i] = part.getShort(offset + 2 * i);
+                    }
+                    visitor.visit(coordinates, part.get(offset + 2 * NUMBER_OF_VALUES) & 0xFF);
+                }
+            }
+            return numberOfRecords;
+        }
+    }
+
+    /**
+     * Converts the text file (see {@link ScenarioParser}) to the binary file
+     *
+     * @param defaultRadius radius of Harry vision for lines without it
+     * @return number of inputs
+     * @throws IOException if files can't be read or written
+     */
+    public static long convert(Path textFile, Path binaryFile, int defaultRadius) throws IOException {
+        try (Writer writer = new Writer(binaryFile)) {
+            return ScenarioParser.parse(textFile, defaultRadius, writer);
+        }
+    }
+}
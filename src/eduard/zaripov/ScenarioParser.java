@@ -0,0 +1,190 @@
+package eduard.zaripov;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads many inputs from the text, one input per line in the same format as {@link IO#parseCoordinates(String)}:
+ * <p>[X,Y] [X,Y] [X,Y] [X,Y] [X,Y] [X,Y] radius</p>
+ * <p>The radius of Harry vision is optional. Empty lines and lines starting with # are skipped</p>
+ * <p>The text is read by blocks of bytes and numbers are calculated from digits directly, so there are no strings and
+ * other objects for each line. It is much faster than {@link IO#parseCoordinates(String)} for big files</p>
+ */
+public class ScenarioParser {
+    private static final int SIZE_OF_BLOCK = 1 << 16;
+    private static final int NUMBER_OF_VALUES = 12;
+    /**
+     * Greater numbers can't be the coordinate or the radius
+     */
+    private static final int MAX_VALUE = 1 << 20;
+
+    // Position inside the coordinate: [ X , Y ]
+    private static final int OUTSIDE = 0;
+    private static final int BEFORE_X = 1;
+    private static final int AFTER_X = 2;
+    private static final int BEFORE_Y = 3;
+    private static final int AFTER_Y = 4;
+
+    /**
+     * Reads all inputs of the text file
+     *
+     * @param file          file to read
+     * @param defaultRadius radius of Harry vision for lines without it
+     * @param visitor       is called for each input
+     * @return number of inputs
+     * @throws IOException           if the file can't be read
+     * @throws NumberFormatException if the line is not in the correct format, the message contains number of the line
+     */
+    public static long parse(Path file, int defaultRadius, ScenarioVisitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return parse(channel, defaultRadius, visitor);
+        }
+    }
+
+    /**
+     * Same as {@link #parse(Path, int, ScenarioVisitor)} for the stream
+     */
+    public static long parse(InputStream inputStream, int defaultRadius, ScenarioVisitor visitor) throws IOException {
+        return parse(Channels.newChannel(inputStream), defaultRadius, visitor);
+    }
+
+    /**
+     * Same as {@link #parse(Path, int, ScenarioVisitor)} for the channel
+     */
+    public static long parse(ReadableByteChannel channel, int defaultRadius, ScenarioVisitor visitor) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SIZE_OF_BLOCK);
+        byte[] bytes = buffer.array();
+        int[] coordinates = new int[NUMBER_OF_VALUES];
+
+        long numberOfInputs = 0;
+        long line = 1;
+        int numberOfValues = 0;
+        int radius = -1;
+        int position = OUTSIDE;
+        int value = 0;
+        boolean isNumber = false;
+        boolean isNegative = false;
+        boolean isComment = false;
+        boolean isEmptyLine = true;
+
+        while (channel.read(buffer) != -1) {
+            int end = buffer.position();
+            for (int i = 0; i < end; i++) {
+                byte current = bytes[i];
+                if (current >= '0' && current <= '9' && !isComment) {
+                    value = value * 10 + (current - '0');
+                    if (value > MAX_VALUE) {
+                        throw error(line, "too big number");
+                    }
+                    isNumber = true;
+                    continue;
+                }
+
+                // The number is finished
+                if (isNumber) {
+                    if (isNegative) {
+                        value = -value;
+                    }
+                    if (position == BEFORE_X || position == BEFORE_Y) {
+                        coordinates[numberOfValues++] = value;
+                        position++;
+                    } else if (position == OUTSIDE && numberOfValues == NUMBER_OF_VALUES && radius == -1) {
+                        radius = value;
+                    } else {
+                        throw error(line, "unexpected number");
+                    }
+                    value = 0;
+                    isNumber = false;
+                    isNegative = false;
+                } else if (isNegative) {
+                    throw error(line, "minus without number");
+                }
+
+                if (current == '\n') {
+                    if (!isEmptyLine) {
+                        if (position != OUTSIDE || numberOfValues != NUMBER_OF_VALUES) {
+                            throw error(line, "should be 6 coordinates");
+                        }
+                        visitor.visit(coordinates, radius == -1 ? defaultRadius : radius);
+                        numberOfInputs++;
+                    }
+                    line++;
+                    numberOfValues = 0;
+                    radius = -1;
+                    isComment = false;
+                    isEmptyLine = true;
+                    continue;
+                }
+                if (isComment) {
+                    continue;
+                }
+
+                switch (current) {
+                    case ' ':
+                    case '\t':
+                    case '\r':
+                        break;
+                    case '#':
+                        if (!isEmptyLine) {
+                            throw error(line, "unexpected #");
+                        }
+                        isComment = true;
+                        break;
+                    case '-':
+                        if (position != BEFORE_X && position != BEFORE_Y) {
+                            throw error(line, "unexpected minus");
+                        }
+                        isNegative = true;
+                        break;
+                    case '[':
+                        if (position != OUTSIDE || numberOfValues == NUMBER_OF_VALUES) {
+                            throw error(line, "unexpected [");
+                        }
+                        position = BEFORE_X;
+                        isEmptyLine = false;
+                        break;
+                    case ',':
+                        if (position != AFTER_X) {
+                            throw error(line, "unexpected ,");
+                        }
+                        position = BEFORE_Y;
+                        break;
+                    case ']':
+                        if (position != AFTER_Y) {
+                            throw error(line, "unexpected ]");
+                        }
+                        position = OUTSIDE;
+                        break;
+                    default:
+                        throw error(line, "unexpected symbol " + (char) current);
+                }
+            }
+            buffer.clear();
+        }
+
+        // The last line without the line break
+        if (isNumber && position == OUTSIDE && numberOfValues == NUMBER_OF_VALUES && radius == -1) {
+            radius = value;
+        } else if (isNumber || isNegative) {
+            throw error(line, "unexpected number");
+        }
+        if (!isEmptyLine) {
+            if (position != OUTSIDE || numberOfValues != NUMBER_OF_VALUES) {
+                throw error(line, "should be 6 coordinates");
+            }
+            visitor.visit(coordinates, radius == -1 ? defaultRadius : radius);
+            numberOfInputs++;
+        }
+        return numberOfInputs;
+    }
+
+    private static NumberFormatException error(long line, String message) {
+        return new NumberFormatException("Line " + line + ": " + message);
+    }
+}
@@ -0,0 +1,31 @@
+package eduard.zaripov;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Receives inputs read by {@link ScenarioParser} and {@link ScenarioFile} one by one
+ */
+public interface ScenarioVisitor {
+    /**
+     * Called for each input
+     *
+     * @param coordinates X and Y of six coordinates in the same order as {@link IO#parseCoordinates(String)} returns:
+     *                    X of the first coordinate, Y of the first coordinate, X of the second one and so on. The array
+     *                    is reused for the next input, so it should be copied to keep it
+     * @param radius      radius of Harry vision, see {@link Perception}
+     * @throws IOException if the visitor writes the input and fails
+     */
+    void visit(int[] coordinates, int radius) throws IOException;
+
+    /**
+     * @return coordinates of the input as a list, the same as {@link IO#parseCoordinates(String)} returns
+     */
+    static ArrayList<Coordinate> toCoordinates(int[] coordinates) {
+        ArrayList<Coordinate> list = new ArrayList<>(coordinates.length / 2);
+        for (int i = 0; i < coordinates.length; i += 2) {
+            list.add(new Coordinate(coordinates[i], coordinates[i + 1]));
+        }
+        return list;
+    }
+}
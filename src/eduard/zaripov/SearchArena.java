@@ -0,0 +1,125 @@
+package eduard.zaripov;
+
+import java.util.Arrays;
+
+/**
+ * Scratch buffers for searches which work with cell indices (see {@link Board#index(int, int)})
+ * <p>Each thread has its own arena, the buffers grow to the largest board the thread has seen and are reused
+ * by the next searches instead of being allocated for each call. A search should call {@link #prepare(int)}
+ * before using the buffers and shouldn't call another search of the same thread while it uses them</p>
+ * <p>{@link #prepare(int)} grows only parents and visited cells, which every search needs. Other buffers grow when
+ * the search takes them, so the thread doesn't hold buffers of the searches which it doesn't run</p>
+ */
+public class SearchArena {
+    private static final ThreadLocal<SearchArena> arenas = ThreadLocal.withInitial(SearchArena::new);
+
+    /**
+     * Queue of cell indices. Each cell is added to the queue at most once, so the queue never overflows
+     */
+    private int[] queue = new int[0];
+    /**
+     * Index of the previous cell in path for each visited cell, -1 for the first cell
+     */
+    private int[] parent = new int[0];
+    /**
+     * Bitset of visited cells
+     */
+    private long[] visited = new long[0];
+    /**
+     * Length of the best known path to the cell, valid only for cells which the search has reached
+     */
+    private int[] costs = new int[0];
+    /**
+     * Open set of searches with priorities
+     */
+    private final IndexedMinHeap heap = new IndexedMinHeap(0);
+    /**
+     * Open set of searches with small integer priorities. The search calls {@link BucketQueue#ensureCapacity} itself,
+     * because it knows the range of keys
+     */
+    private final BucketQueue bucketQueue = new BucketQueue(0, 0);
+    /**
+     * Buffers of the second search for searches which run two searches at once, null until it is needed
+     */
+    private SearchArena secondArena;
+
+    /**
+     * @return arena of the current thread
+     */
+    public static SearchArena current() {
+        return arenas.get();
+    }
+
+    /**
+     * Grows parents and visited cells if they are smaller than number of cells and clears visited cells
+     *
+     * @param numberOfCells number of cells on the board
+     */
+    public void prepare(int numberOfCells) {
+        int numberOfWords = (numberOfCells + 63) >>> 6;
+        if (parent.length < numberOfCells) {
+            parent = new int[numberOfCells];
+            visited = new long[numberOfWords];
+        } else {
+            Arrays.fill(visited, 0, numberOfWords, 0L);
+        }
+    }
+
+    /**
+     * @param numberOfCells number of cells on the board
+     * @return queue with at least this number of cells
+     */
+    public int[] getQueue(int numberOfCells) {
+        if (queue.length < numberOfCells) {
+            queue = new int[numberOfCells];
+        }
+        return queue;
+    }
+
+    public int[] getParent() {
+        return parent;
+    }
+
+    /**
+     * @param numberOfCells number of cells on the board
+     * @return costs with at least this number of cells
+     */
+    public int[] getCosts(int numberOfCells) {
+        if (costs.length < numberOfCells) {
+            costs = new int[numberOfCells];
+        }
+        return costs;
+    }
+
+    /**
+     * @param numberOfCells number of cells on the board
+     * @return empty heap for this number of cells
+     */
+    public IndexedMinHeap getHeap(int numberOfCells) {
+        heap.ensureCapacity(numberOfCells);
+        return heap;
+    }
+
+    public BucketQueue getBucketQueue() {
+        return bucketQueue;
+    }
+
+    /**
+     * @return arena for the second search of the same call, for example the backward one. It should be prepared
+     * separately
+     */
+    public SearchArena getSecondArena() {
+        if (secondArena == null) {
+            secondArena = new SearchArena();
+        }
+        return secondArena;
+    }
+
+    public boolean isVisited(int cell) {
+        return (visited[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    public void markVisited(int cell) {
+        visited[cell >>> 6] |= 1L << cell;
+    }
+}
@@ -0,0 +1,128 @@
+package eduard.zaripov;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the work of searches and results of scenarios
+ * <p>The search counts its work in local variables and adds them here once at the end of each leg (see
+ * {@link FindPathInterface#setMetrics(SearchMetrics)}), so without metrics it costs only the local increments.
+ * Counters are {@link LongAdder}, so one metrics can be shared by searches of many threads without contention.
+ * Scenarios are counted by {@link Solution#setMetrics(SearchMetrics)}</p>
+ * <p>{@link #export()} writes counters in the text format of Prometheus</p>
+ */
+public class SearchMetrics {
+    private final LongAdder legs = new LongAdder();
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder pushes = new LongAdder();
+    private final LongAdder neighborChecks = new LongAdder();
+    private final LongAdder detections = new LongAdder();
+    private final LongAdder captures = new LongAdder();
+
+    private final LongAdder scenariosWithPath = new LongAdder();
+    private final LongAdder scenariosWithoutPath = new LongAdder();
+    private final LongAdder capturedScenarios = new LongAdder();
+
+    /**
+     * Adds the work of one leg
+     *
+     * @param expandedNodes  number of cells whose neighbors were checked
+     * @param pushes         number of cells added to the queue or the open set (recursive calls for backtracking)
+     * @param neighborChecks number of checked neighbors
+     * @param detections     number of times Harry looked around, see {@link Perception}
+     * @param isCaptured     true if Harry is captured on this leg
+     */
+    public void recordLeg(long expandedNodes, long pushes, long neighborChecks, long detections, boolean isCaptured) {
+        legs.increment();
+        this.expandedNodes.add(expandedNodes);
+        this.pushes.add(pushes);
+        this.neighborChecks.add(neighborChecks);
+        this.detections.add(detections);
+        if (isCaptured) {
+            captures.increment();
+        }
+    }
+
+    /**
+     * Adds the result of one scenario
+     *
+     * @param isFound    true if the path is found
+     * @param isCaptured true if Harry is captured in the scenario
+     */
+    public void recordScenario(boolean isFound, boolean isCaptured) {
+        if (isCaptured) {
+            capturedScenarios.increment();
+        } else if (!isFound) {
+            scenariosWithoutPath.increment();
+        } else {
+            scenariosWithPath.increment();
+        }
+    }
+
+    public long getLegs() {
+        return legs.sum();
+    }
+
+    public long getExpandedNodes() {
+        return expandedNodes.sum();
+    }
+
+    public long getPushes() {
+        return pushes.sum();
+    }
+
+    public long getNeighborChecks() {
+        return neighborChecks.sum();
+    }
+
+    public long getDetections() {
+        return detections.sum();
+    }
+
+    public long getCaptures() {
+        return captures.sum();
+    }
+
+    public long getScenariosWithPath() {
+        return scenariosWithPath.sum();
+    }
+
+    public long getScenariosWithoutPath() {
+        return scenariosWithoutPath.sum();
+    }
+
+    public long getCapturedScenarios() {
+        return capturedScenarios.sum();
+    }
+
+    /**
+     * Sets all counters to 0
+     */
+    public void reset() {
+        for (LongAdder counter : new LongAdder[]{legs, expandedNodes, pushes, neighborChecks, detections, captures,
+                scenariosWithPath, scenariosWithoutPath, capturedScenarios}) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * @return all counters in the text format of Prometheus, one counter per line
+     */
+    public String export() {
+        return "# TYPE search_legs_total counter\n" +
+                "search_legs_total " + getLegs() + "\n" +
+                "# TYPE search_expanded_nodes_total counter\n" +
+                "search_expanded_nodes_total " + getExpandedNodes() + "\n" +
+                "# TYPE search_pushes_total counter\n" +
+                "search_pushes_total " + getPushes() + "\n" +
+                "# TYPE search_neighbor_checks_total counter\n" +
+                "search_neighbor_checks_total " + getNeighborChecks() + "\n" +
+                "# TYPE search_detections_total counter\n" +
+                "search_detections_total " + getDetections() + "\n" +
+                "# TYPE search_captures_total counter\n" +
+                "search_captures_total " + getCaptures() + "\n" +
+                "# TYPE solution_scenarios_total counter\n" +
+                "solution_scenarios_total{result=\"path\"} " + getScenariosWithPath() + "\n" +
+                "solution_scenarios_total{result=\"no_path\"} " + getScenariosWithoutPath() + "\n" +
+                "solution_scenarios_total{result=\"captured\"} " + getCapturedScenarios() + "\n";
+    }
+}
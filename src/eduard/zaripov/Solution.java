@@ -2,7 +2,11 @@ package eduard.zaripov;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * Manages work with I/O, finding paths and print them
@@ -17,74 +21,20 @@ public class Solution {
      */
     static class RandomInput {
         /**
-         * Upper bound for creating coordinates
+         * Seeds of generators of threads are taken from it
          */
-        private static final int upperBound = Solution.sizeOfGrid;
-        private static final Random random = new Random();
-
-        public static ArrayList<Coordinate> getRandomInputCoordinates() {
-            ArrayList<Coordinate> coordinates = new ArrayList<>();
-
-            // Save them before adding
-            Coordinate filchCoordinate = getRandomCoordinates();
-            Coordinate catCoordinate = getRandomCoordinates();
-
-            Coordinate startCoordinate = getRandomCoordinates();
-            // Until not in the danger zone start coordinate generates
-            while (isInDanger(startCoordinate, filchCoordinate, filchRadius) ||
-                    isInDanger(startCoordinate, catCoordinate, catRadius)) {
-                startCoordinate = getRandomCoordinates();
+        private static final BoardGenerator seeds = new BoardGenerator(new SplittableRandom().nextLong());
+        private static final ThreadLocal<BoardGenerator> generators = ThreadLocal.withInitial(() -> {
+            synchronized (seeds) {
+                return seeds.split();
             }
-            coordinates.add(startCoordinate);
-
-            // Adding them after start coordinate
-            coordinates.add(filchCoordinate);
-            coordinates.add(catCoordinate);
-
-            for (int i = 0; i < 3; i++) {
-                Coordinate currentCoordinate = getRandomCoordinates();
-                // Until not in the danger zone coordinate of crucial cell generates
-                while (isInDanger(currentCoordinate, filchCoordinate, filchRadius) ||
-                        isInDanger(currentCoordinate, catCoordinate, catRadius)) {
-                    currentCoordinate = getRandomCoordinates();
-                }
-                coordinates.add(currentCoordinate);
-            }
-
-            // Until not equal start and exit coordinates generates
-            while (coordinates.get(5).equals(coordinates.get(3)) ||
-                    isInDanger(coordinates.get(5), filchCoordinate, filchRadius) ||
-                    isInDanger(coordinates.get(5), catCoordinate, catRadius)) {
-                coordinates.set(5, getRandomCoordinates());
-            }
-
-            return coordinates;
-        }
-
-        /**
-         * @return coordinate with random values from 0 to upperBound
-         */
-        private static Coordinate getRandomCoordinates() {
-            return new Coordinate(random.nextInt(upperBound), random.nextInt(upperBound));
-        }
+        });
 
         /**
-         * Check if generated coordinate in the danger zone
-         *
-         * @param currentCoordinate   coordinate to check
-         * @param inspectorCoordinate coordinate of Inspector
-         * @param radius              radius of Inspector's danger zone
-         * @return true if coordinate in the danger zone, false otherwise
+         * @return coordinates in the same order as {@link IO#parseCoordinates(String)} returns, see {@link BoardGenerator}
          */
-        private static boolean isInDanger(Coordinate currentCoordinate, Coordinate inspectorCoordinate, int radius) {
-            for (int i = inspectorCoordinate.getX() - radius; i <= inspectorCoordinate.getX() + radius; i++) {
-                for (int j = inspectorCoordinate.getY() - filchRadius; j <= inspectorCoordinate.getY() + filchRadius; j++) {
-                    if (currentCoordinate.equals(new Coordinate(i, j))) {
-                        return true;
-                    }
-                }
-            }
-            return false;
+        public static ArrayList<Coordinate> getRandomInputCoordinates() {
+            return generators.get().nextInputCoordinates();
         }
     }
 
@@ -100,6 +50,14 @@ public class Solution {
      * Each scenario maps to bool in case of optimization. If the scenario maps to bool, it means that there is no path for this scenario
      */
     HashMap<ArrayList<TypeOfCell>, Boolean> allScenarios;
+    /**
+     * Paths between checkpoints which are already calculated. It is shared by all scenarios and all calls of findPath
+     */
+    final LegCache legCache = new LegCache();
+    /**
+     * Counters of results of scenarios or null if they are not needed
+     */
+    private SearchMetrics metrics;
 
     /**
      * Constructs a Solution class with input coordinates and mode
@@ -111,7 +69,7 @@ public class Solution {
         this.exitPosition = inputCoordinates.get(5);
 
         try {
-            this.board = new Board(sizeOfGrid, filchRadius, catRadius, harryPosition, inputCoordinates.get(1), inputCoordinates.get(2), bookPosition, cloakPosition, exitPosition);
+            this.board = createBoard(inputCoordinates);
         } catch (HarryIsCapturedException e) {
             IO.printString(e.getMessage() + ". He is spawned inside the danger zone");
             System.exit(1);
@@ -125,6 +83,67 @@ public class Solution {
         }
     }
 
+    /**
+     * Constructs a Solution class with already created board, for example the board of another size
+     */
+    public Solution(Board board, Perception mode) {
+        this.board = board;
+        this.harryPosition = board.getPositionOfSubject(TypeOfCell.START);
+        this.bookPosition = board.getPositionOfSubject(TypeOfCell.BOOK);
+        this.cloakPosition = board.getPositionOfSubject(TypeOfCell.CLOAK);
+        this.exitPosition = board.getPositionOfSubject(TypeOfCell.EXIT);
+
+        this.mode = mode;
+        this.allScenarios = new HashMap<>();
+        for (ArrayList<TypeOfCell> scenario : getAllPossibleScenarios()) {
+            allScenarios.put(scenario, true);
+        }
+    }
+
+    /**
+     * Creates the board of the standard size with two inspectors for input coordinates
+     *
+     * @param inputCoordinates coordinates in the same order as {@link IO#parseCoordinates(String)} returns
+     * @throws IllegalInputCoordinate   if the coordinate is incorrect of crucial subjects are in the danger zone
+     * @throws HarryIsCapturedException if Harry is spawned inside the danger zone
+     */
+    static Board createBoard(ArrayList<Coordinate> inputCoordinates) throws IllegalInputCoordinate, HarryIsCapturedException {
+        return new Board(sizeOfGrid, filchRadius, catRadius, inputCoordinates.get(0), inputCoordinates.get(1), inputCoordinates.get(2),
+                inputCoordinates.get(3), inputCoordinates.get(4), inputCoordinates.get(5));
+    }
+
+    /**
+     * Solves another input on the same board: the board is reset (see {@link Board#reset}) instead of creating the
+     * new one, calculated paths are forgotten and all scenarios are possible again
+     *
+     * @param inputCoordinates coordinates in the same order as {@link IO#parseCoordinates(String)} returns
+     * @throws IllegalInputCoordinate   if the coordinate is incorrect of crucial subjects are in the danger zone
+     * @throws HarryIsCapturedException if Harry is spawned inside the danger zone
+     */
+    public void reset(ArrayList<Coordinate> inputCoordinates) throws IllegalInputCoordinate, HarryIsCapturedException {
+        reset(inputCoordinates, mode);
+    }
+
+    /**
+     * Same as {@link #reset(ArrayList)}, but Harry has another vision for the new input
+     *
+     * @param mode type of perception of harry vision
+     */
+    public void reset(ArrayList<Coordinate> inputCoordinates, Perception mode) throws IllegalInputCoordinate, HarryIsCapturedException {
+        ArrayList<Inspector> inspectors = new ArrayList<>();
+        inspectors.add(new Inspector(inputCoordinates.get(1), filchRadius));
+        inspectors.add(new Inspector(inputCoordinates.get(2), catRadius));
+        board.reset(inputCoordinates.get(0), inputCoordinates.get(3), inputCoordinates.get(4), inputCoordinates.get(5), inspectors);
+
+        this.harryPosition = inputCoordinates.get(0);
+        this.bookPosition = inputCoordinates.get(3);
+        this.cloakPosition = inputCoordinates.get(4);
+        this.exitPosition = inputCoordinates.get(5);
+        this.mode = mode;
+        legCache.clear();
+        allScenarios.replaceAll((scenario, isPossible) -> true);
+    }
+
     /**
      * Constructs a Solution class with random coordinate and input mode
      */
@@ -141,30 +160,132 @@ public class Solution {
      * <p>for example: path HARRY -> BOOK -> EXIT will be divided into paths: HARRY -> BOOK and BOOK -> EXIT</p>
      */
     public ArrayList<ArrayList<Coordinate>> findPath(FindPathInterface typeOfSearch) {
+        try {
+            return findShortestPath(typeOfSearch);
+        } catch (HarryIsCapturedException e) {
+            IO.printString(e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Same as {@link #findPath(FindPathInterface)}, but doesn't print anything if Harry is captured
+     *
+     * @return path divided in parts. If the path is empty -> there is no path
+     * @throws HarryIsCapturedException if Harry lose in any scenario
+     */
+    public ArrayList<ArrayList<Coordinate>> findShortestPath(FindPathInterface typeOfSearch) throws HarryIsCapturedException {
+        ArrayList<ArrayList<TypeOfCell>> scenarios = new ArrayList<>(allScenarios.keySet());
+        ArrayList<ArrayList<ArrayList<Coordinate>>> paths = new ArrayList<>();
+
+        for (ArrayList<TypeOfCell> scenario : scenarios) {
+            paths.add(calculateScenario(typeOfSearch, scenario));
+        }
+        return chooseShortestPath(scenarios, paths);
+    }
+
+    /**
+     * Counts results of scenarios calculated by {@link #findPath(FindPathInterface)},
+     * {@link #findShortestPath(FindPathInterface)} and {@link #findPath(Supplier, ExecutorService)}. The work of the
+     * search is counted only if the same metrics are attached to it, see {@link FindPathInterface#setMetrics(SearchMetrics)}
+     *
+     * @param metrics counters or null to stop counting
+     */
+    public void setMetrics(SearchMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Same as {@link #calculatePath}, but adds the result to {@link #metrics}
+     */
+    private ArrayList<ArrayList<Coordinate>> calculateScenario(FindPathInterface typeOfSearch, ArrayList<TypeOfCell> scenario) throws HarryIsCapturedException {
+        ArrayList<ArrayList<Coordinate>> path;
+        try {
+            path = calculatePath(typeOfSearch, board, mode, scenario);
+        } catch (HarryIsCapturedException e) {
+            if (metrics != null) {
+                metrics.recordScenario(false, true);
+            }
+            throw e;
+        }
+        if (metrics != null) {
+            metrics.recordScenario(path != null, false);
+        }
+        return path;
+    }
+
+    /**
+     * Same as {@link #findPath(FindPathInterface)}, but all scenarios are calculated at the same time by the executor.
+     * Each scenario gets its own instance of search, so they don't share detected nodes and other state.
+     * The result doesn't depend on the order in which scenarios finish: if the scenarios have the same length,
+     * the same one is chosen as by {@link #findPath(FindPathInterface)}
+     * <p>If the current thread is interrupted, all scenarios are cancelled</p>
+     *
+     * @param searchFactory creates search for each scenario
+     * @param executor      executor to run scenarios
+     * @return path divided in parts. If the path is empty -> there is no path
+     */
+    public ArrayList<ArrayList<Coordinate>> findPath(Supplier<? extends FindPathInterface> searchFactory, ExecutorService executor) {
+        ArrayList<ArrayList<TypeOfCell>> scenarios = new ArrayList<>(allScenarios.keySet());
+        ArrayList<Future<ArrayList<ArrayList<Coordinate>>>> futures = new ArrayList<>();
+        for (ArrayList<TypeOfCell> scenario : scenarios) {
+            futures.add(executor.submit(() -> calculateScenario(searchFactory.get(), scenario)));
+        }
+
+        ArrayList<ArrayList<ArrayList<Coordinate>>> paths = new ArrayList<>();
+        try {
+            for (Future<ArrayList<ArrayList<Coordinate>>> future : futures) {
+                paths.add(future.get());
+            }
+        } catch (ExecutionException e) {
+            cancelAll(futures);
+            if (e.getCause() instanceof HarryIsCapturedException) {
+                IO.printString(e.getCause().getMessage());
+                return new ArrayList<>();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            cancelAll(futures);
+            Thread.currentThread().interrupt();
+            return new ArrayList<>();
+        }
+        return chooseShortestPath(scenarios, paths);
+    }
+
+    private static void cancelAll(ArrayList<? extends Future<?>> futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Chooses the shortest path. If there are several shortest paths, the first of them is chosen.
+     * Marks scenarios without path in {@link #allScenarios}
+     *
+     * @param scenarios scenarios in the order of calculation
+     * @param paths     path for each scenario, null if there is no path
+     * @return the shortest path or empty list if there is no path
+     */
+    private ArrayList<ArrayList<Coordinate>> chooseShortestPath(ArrayList<ArrayList<TypeOfCell>> scenarios, ArrayList<ArrayList<ArrayList<Coordinate>>> paths) {
         ArrayList<ArrayList<Coordinate>> minPath = null;
         int minLength = Integer.MAX_VALUE;
 
-        for (ArrayList<TypeOfCell> scenario : allScenarios.keySet()) {
-            try {
-                ArrayList<ArrayList<Coordinate>> path = calculatePath(typeOfSearch, board, mode, scenario);
-                if (path != null) {
-                    int overallLength = 0;
-                    for (ArrayList<Coordinate> currentPath : path) {
-                        overallLength += currentPath.size();
-                    }
-                    if (minPath == null) {
-                        minPath = path;
-                        minLength = overallLength;
-                    } else if (overallLength < minLength) {
-                        minPath = path;
-                        minLength = overallLength;
-                    }
-                } else {
-                    allScenarios.replace(scenario, false);
+        for (int i = 0; i < scenarios.size(); i++) {
+            ArrayList<ArrayList<Coordinate>> path = paths.get(i);
+            if (path != null) {
+                int overallLength = 0;
+                for (ArrayList<Coordinate> currentPath : path) {
+                    overallLength += currentPath.size();
                 }
-            } catch (HarryIsCapturedException e) {
-                IO.printString(e.getMessage());
-                return new ArrayList<>();
+                if (minPath == null) {
+                    minPath = path;
+                    minLength = overallLength;
+                } else if (overallLength < minLength) {
+                    minPath = path;
+                    minLength = overallLength;
+                }
+            } else {
+                allScenarios.replace(scenarios.get(i), false);
             }
         }
         if (minPath == null) {
@@ -173,6 +294,87 @@ public class Solution {
         return minPath;
     }
 
+    /**
+     * Same as {@link #findPath(FindPathInterface)}, but all legs of all scenarios are taken from {@link DistanceField}.
+     * The field is calculated once for each checkpoint where the leg starts (start, book, cloak) and for each state
+     * of the cloak on this leg, so there are at most four searches for all scenarios. Scenarios are scored by the
+     * distances, and only paths of the chosen scenario are restored
+     * <p>The fields know the whole board: Harry doesn't detect dangers and can't be captured, so the path is the
+     * shortest path through safe cells</p>
+     *
+     * @return path divided in parts. If the path is empty -> there is no path
+     */
+    public ArrayList<ArrayList<Coordinate>> findPathByDistanceFields() {
+        ArrayList<ArrayList<TypeOfCell>> scenarios = new ArrayList<>(allScenarios.keySet());
+        // Index is 2 * ordinal of the checkpoint + 1 if Harry has the cloak
+        DistanceField[] fields = new DistanceField[2 * TypeOfCell.values().length];
+
+        ArrayList<TypeOfCell> minScenario = null;
+        int minLength = Integer.MAX_VALUE;
+        for (ArrayList<TypeOfCell> scenario : scenarios) {
+            int overallLength = 0;
+            boolean isCloakInPath = false;
+            TypeOfCell currentCheckpoint = TypeOfCell.START;
+            for (TypeOfCell subjectToFind : scenario) {
+                int distance = getDistanceField(fields, currentCheckpoint, isCloakInPath).getDistance(board.getPositionOfSubject(subjectToFind));
+                if (distance == -1) {
+                    overallLength = -1;
+                    break;
+                }
+                // Same as the size of the path in chooseShortestPath
+                overallLength += distance + 1;
+                currentCheckpoint = subjectToFind;
+                if (subjectToFind == TypeOfCell.CLOAK) {
+                    isCloakInPath = true;
+                }
+            }
+
+            if (overallLength == -1) {
+                allScenarios.replace(scenario, false);
+            } else if (overallLength < minLength) {
+                minScenario = scenario;
+                minLength = overallLength;
+            }
+        }
+        if (minScenario == null) {
+            return new ArrayList<>();
+        }
+
+        ArrayList<ArrayList<Coordinate>> overallScenarioPath = new ArrayList<>();
+        boolean isCloakInPath = false;
+        TypeOfCell currentCheckpoint = TypeOfCell.START;
+        for (TypeOfCell subjectToFind : minScenario) {
+            overallScenarioPath.add(getDistanceField(fields, currentCheckpoint, isCloakInPath).getPath(board.getPositionOfSubject(subjectToFind)));
+            currentCheckpoint = subjectToFind;
+            if (subjectToFind == TypeOfCell.CLOAK) {
+                isCloakInPath = true;
+            }
+        }
+        return overallScenarioPath;
+    }
+
+    /**
+     * @return field from the checkpoint, it is calculated at the first call
+     */
+    private DistanceField getDistanceField(DistanceField[] fields, TypeOfCell checkpoint, boolean isInvisible) {
+        int index = 2 * checkpoint.ordinal() + (isInvisible ? 1 : 0);
+        if (fields[index] == null) {
+            fields[index] = new DistanceField(board, board.getPositionOfSubject(checkpoint), isInvisible);
+        }
+        return fields[index];
+    }
+
+    /**
+     * Finds path only for input scenario
+     *
+     * @param scenario as a list of types of cell, one of {@link #getAllPossibleScenarios()}
+     * @return path divided in parts or null if there is no path
+     * @throws HarryIsCapturedException if Harry lose
+     */
+    public ArrayList<ArrayList<Coordinate>> findPath(FindPathInterface typeOfSearch, ArrayList<TypeOfCell> scenario) throws HarryIsCapturedException {
+        return calculatePath(typeOfSearch, board, mode, scenario);
+    }
+
     /**
      * Calculates path for input scenario
      *
@@ -186,12 +388,13 @@ public class Solution {
         for (TypeOfCell subjectToFind : scenario) {
             ArrayList<Coordinate> currentPath;
             if (scenario.indexOf(subjectToFind) == 0) {
-                currentPath = typeOfSearch.findPath(board, currentCheckpoint, subjectToFind, isCloakInPath, mode, true);
+                currentPath = legCache.findPath(typeOfSearch, board, currentCheckpoint, subjectToFind, isCloakInPath, mode, true);
             } else {
-                currentPath = typeOfSearch.findPath(board, currentCheckpoint, subjectToFind, isCloakInPath, mode, false);
+                currentPath = legCache.findPath(typeOfSearch, board, currentCheckpoint, subjectToFind, isCloakInPath, mode, false);
             }
 
-            if (currentPath == null) {
+            // Empty path is returned by interrupted search
+            if (currentPath == null || currentPath.isEmpty()) {
                 return null;
             }
 
@@ -208,7 +411,7 @@ public class Solution {
     /**
      * @return list of possible scenario. Each scenario is the list of cell's type in current order
      */
-    private ArrayList<ArrayList<TypeOfCell>> getAllPossibleScenarios() {
+    static ArrayList<ArrayList<TypeOfCell>> getAllPossibleScenarios() {
         ArrayList<ArrayList<TypeOfCell>> allScenarios = new ArrayList<>();
 
         ArrayList<TypeOfCell> currentScenario = new ArrayList<>();
@@ -226,6 +429,13 @@ public class Solution {
         return allScenarios;
     }
 
+    /**
+     * @return cache of paths between checkpoints with its hit and miss counters
+     */
+    public LegCache getLegCache() {
+        return legCache;
+    }
+
     /**
      * Using input path and board creates string
      *
@@ -0,0 +1,366 @@
+package eduard.zaripov;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Server which solves inputs sent by TCP, so the JVM is started once and the solvers stay warm between queries
+ * <p>The server listens only on the loopback address. Each request is one line:</p>
+ * <p>[X,Y] [X,Y] [X,Y] [X,Y] [X,Y] [X,Y] algorithm radius</p>
+ * <p>Coordinates are in the same order as {@link IO#parseCoordinates(String)} returns. The algorithm (see
+ * {@link #getNamesOfAlgorithms()}, BFS by default) and the radius of Harry vision (1 by default) are optional.
+ * Empty lines and lines starting with # are skipped. Each other line gets one line of the response:</p>
+ * <ul>
+ *     <li>OK length path, where the path is all cells from Harry to the exit without spaces: [X,Y][X,Y]...</li>
+ *     <li>NO_PATH if there is no path</li>
+ *     <li>CAPTURED if Harry is spawned inside the danger zone or is captured by the search</li>
+ *     <li>ERROR message if the request is illegal</li>
+ * </ul>
+ * <p>The client can send many requests without waiting for responses. They are solved in parallel by the pool of
+ * threads and responses are returned in the order of requests. As in {@link BatchSolver}, each thread of the pool
+ * keeps its {@link Solution} and its searches and resets them for the next request. The number of requests waiting
+ * for the pool is limited, so a fast client is slowed down instead of filling the memory</p>
+ */
+public class SolverServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 7878;
+    private static final String DEFAULT_ALGORITHM = "bfs";
+    private static final int DEFAULT_RADIUS = 1;
+    private static final int MAX_RADIUS = Solution.sizeOfGrid;
+    /**
+     * Number of requests per thread of the pool which can wait for it
+     */
+    private static final int REQUESTS_AHEAD_PER_THREAD = 16;
+    /**
+     * Number of requests of one connection which can be solved ahead of the response which is sent next
+     */
+    private static final int REQUESTS_AHEAD_PER_CONNECTION = 64;
+    /**
+     * Marks the end of requests of the connection
+     */
+    private static final Future<String> END = CompletableFuture.completedFuture(null);
+    /**
+     * Backtracking is not here, because it can't answer in time for most of inputs
+     */
+    private static final LinkedHashMap<String, Supplier<FindPathInterface>> ALGORITHMS = new LinkedHashMap<>();
+
+    static {
+        ALGORITHMS.put("bfs", BFS::new);
+        ALGORITHMS.put("astar", AStar::new);
+        ALGORITHMS.put("dial", DialAStar::new);
+        ALGORITHMS.put("jps", JumpPointSearch::new);
+        ALGORITHMS.put("bidirectional", BidirectionalBFS::new);
+        ALGORITHMS.put("dstar", DStarLite::new);
+    }
+
+    private static final Perception[] PERCEPTIONS = new Perception[MAX_RADIUS + 1];
+
+    static {
+        for (int radius = 1; radius <= MAX_RADIUS; radius++) {
+            PERCEPTIONS[radius] = new Perception(radius);
+        }
+    }
+
+    /**
+     * Solution and searches of one thread of the pool
+     */
+    private static class Worker {
+        private final HashMap<String, FindPathInterface> searches = new HashMap<>();
+        /**
+         * It is created by the first correct request of the thread
+         */
+        private Solution solution;
+
+        String solve(String request) {
+            String[] tokens = request.trim().split("\\s+");
+            if (tokens.length < 6 || tokens.length > 8) {
+                return "ERROR Should be 6 coordinates, algorithm and radius";
+            }
+
+            ArrayList<Coordinate> inputCoordinates = new ArrayList<>();
+            try {
+                for (int i = 0; i < 6; i++) {
+                    if (!tokens[i].startsWith("[") || !tokens[i].endsWith("]")) {
+                        return "ERROR Illegal coordinate " + tokens[i];
+                    }
+                    inputCoordinates.add(Coordinate.deserialize(tokens[i]));
+                }
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return "ERROR Illegal coordinate in " + request;
+            }
+
+            String nameOfAlgorithm = tokens.length > 6 ? tokens[6].toLowerCase() : DEFAULT_ALGORITHM;
+            if (!ALGORITHMS.containsKey(nameOfAlgorithm)) {
+                return "ERROR Unknown algorithm " + tokens[6];
+            }
+            int radius;
+            try {
+                radius = tokens.length > 7 ? Integer.parseInt(tokens[7]) : DEFAULT_RADIUS;
+            } catch (NumberFormatException e) {
+                return "ERROR Illegal radius " + tokens[7];
+            }
+            if (radius < 1 || radius > MAX_RADIUS) {
+                return "ERROR Radius should be from 1 to " + MAX_RADIUS;
+            }
+
+            FindPathInterface typeOfSearch = searches.computeIfAbsent(nameOfAlgorithm, name -> ALGORITHMS.get(name).get());
+            try {
+                if (solution == null) {
+                    solution = new Solution(Solution.createBoard(inputCoordinates), PERCEPTIONS[radius]);
+                } else {
+                    solution.reset(inputCoordinates, PERCEPTIONS[radius]);
+                }
+                return toResponse(solution.findShortestPath(typeOfSearch));
+            } catch (HarryIsCapturedException e) {
+                return "CAPTURED";
+            } catch (IllegalInputCoordinate e) {
+                return "ERROR " + e.getMessage();
+            }
+        }
+    }
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService pool;
+    /**
+     * Two threads for each connection: one reads requests and one writes responses
+     */
+    private final ExecutorService connectionThreads = Executors.newCachedThreadPool();
+    private final Semaphore waitingRequests;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Opens the port on the loopback address. Requests are accepted after {@link #serve()} or {@link #start()}
+     *
+     * @param port            port to listen or 0 to choose any free port
+     * @param numberOfThreads number of threads to solve requests
+     * @throws IOException if the port can't be opened
+     */
+    public SolverServer(int port, int numberOfThreads) throws IOException {
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads should be at least 1");
+        }
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.pool = Executors.newFixedThreadPool(numberOfThreads);
+        this.waitingRequests = new Semaphore(numberOfThreads * REQUESTS_AHEAD_PER_THREAD);
+    }
+
+    /**
+     * @return names of algorithms which can be chosen by the request
+     */
+    public static ArrayList<String> getNamesOfAlgorithms() {
+        return new ArrayList<>(ALGORITHMS.keySet());
+    }
+
+    /**
+     * @return port which is listened, useful if the server is created with the port 0
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed
+     *
+     * @throws IOException if the connection can't be accepted
+     */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            socket.setTcpNoDelay(true);
+            connections.add(socket);
+            connectionThreads.execute(() -> handle(socket));
+        }
+    }
+
+    /**
+     * Same as {@link #serve()}, but accepts connections by another thread and returns at once
+     */
+    public void start() {
+        connectionThreads.execute(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                IO.printString("Server is stopped: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Reads requests of the connection and gives them to the pool. Responses are written by another thread
+     */
+    private void handle(Socket socket) {
+        BlockingQueue<Future<String>> responses = new ArrayBlockingQueue<>(REQUESTS_AHEAD_PER_CONNECTION);
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            connectionThreads.execute(() -> writeResponses(socket, writer, responses));
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+                String request;
+                while ((request = reader.readLine()) != null) {
+                    if (request.trim().isEmpty() || request.charAt(0) == '#') {
+                        continue;
+                    }
+                    String currentRequest = request;
+                    waitingRequests.acquire();
+                    Future<String> response;
+                    try {
+                        response = pool.submit(() -> {
+                            try {
+                                return workers.get().solve(currentRequest);
+                            } finally {
+                                waitingRequests.release();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        // The server is closed
+                        waitingRequests.release();
+                        throw e;
+                    }
+                    responses.put(response);
+                }
+            } finally {
+                responses.put(END);
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            closeConnection(socket);
+        } catch (InterruptedException e) {
+            closeConnection(socket);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes responses in the order of requests. The writer is flushed only before waiting, so responses of many
+     * pipelined requests are sent together
+     */
+    private void writeResponses(Socket socket, Writer writer, BlockingQueue<Future<String>> responses) {
+        boolean isBroken = false;
+        try {
+            while (true) {
+                Future<String> response = responses.poll();
+                if (response == null || !response.isDone()) {
+                    if (!isBroken) {
+                        isBroken = !flush(socket, writer);
+                    }
+                    if (response == null) {
+                        response = responses.take();
+                    }
+                }
+                if (response == END) {
+                    break;
+                }
+                String line;
+                try {
+                    line = response.get();
+                } catch (ExecutionException e) {
+                    line = "ERROR " + e.getCause();
+                }
+                if (!isBroken) {
+                    try {
+                        writer.write(line);
+                        writer.write('\n');
+                    } catch (IOException e) {
+                        isBroken = true;
+                        closeConnection(socket);
+                    }
+                }
+            }
+            if (!isBroken) {
+                flush(socket, writer);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeConnection(socket);
+        }
+    }
+
+    /**
+     * @return false if the connection is broken and closed
+     */
+    private boolean flush(Socket socket, Writer writer) {
+        try {
+            writer.flush();
+            return true;
+        } catch (IOException e) {
+            closeConnection(socket);
+            return false;
+        }
+    }
+
+    private void closeConnection(Socket socket) {
+        connections.remove(socket);
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+            // nothing to do with the connection which can't be closed
+        }
+    }
+
+    /**
+     * @param path path divided in parts, empty if there is no path
+     * @return the line of the response for the path
+     */
+    static String toResponse(ArrayList<ArrayList<Coordinate>> path) {
+        if (path.isEmpty()) {
+            return "NO_PATH";
+        }
+        StringBuilder response = new StringBuilder("OK ").append(Main.calculatePathLength(path)).append(' ');
+        appendCoordinate(response, path.get(0).get(0));
+        for (ArrayList<Coordinate> partOfThePath : path) {
+            // The first cell of the part is the last cell of the previous part
+            for (int i = 1; i < partOfThePath.size(); i++) {
+                appendCoordinate(response, partOfThePath.get(i));
+            }
+        }
+        return response.toString();
+    }
+
+    private static void appendCoordinate(StringBuilder response, Coordinate coordinate) {
+        response.append('[').append(coordinate.getX()).append(',').append(coordinate.getY()).append(']');
+    }
+
+    /**
+     * Stops accepting connections, closes all connections and stops threads of the server
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : connections) {
+            closeConnection(socket);
+        }
+        connectionThreads.shutdownNow();
+        pool.shutdownNow();
+    }
+}
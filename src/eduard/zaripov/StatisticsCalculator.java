@@ -1,22 +1,19 @@
 package eduard.zaripov;
 
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Scanner;
+import java.util.ArrayDeque;
+import java.util.Locale;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Calculate statistics for samples. Parse data from file
  */
 public class StatisticsCalculator {
-    /**
-     * For > 10, the execution will be greater than 5 min
-     */
-    private static final int numberOfExperiments = 1000;
+    private static final double NANOS_PER_MILLI = 1_000_000;
 
     /**
      * Nested class for convenient work with result of experiment
@@ -32,11 +29,6 @@ public class StatisticsCalculator {
             this.isWin = isWin.equals("w");
         }
 
-        public static ResultOfExperiment parseString(String str) {
-            String[] words = str.split(" ");
-            return new ResultOfExperiment(Integer.parseInt(words[0]), Integer.parseInt(words[1]), words[2]);
-        }
-
         @Override
         public String toString() {
             return numberOfSteps + " " + time + " " + isWin;
@@ -44,140 +36,124 @@ public class StatisticsCalculator {
     }
 
     /**
-     * For input coordinates and mode creates numberOfExperiments samples
+     * Runs numberOfExperiments experiments on random boards and writes results to file in format of:
+     * <p>X Y Z</p>
+     * where X=length, Y=time in nanoseconds, Z=w or l (win or lose)
+     * <p>Boards are generated, solved and recorded by the pool of threads sized to the machine. Only a few experiments
+     * are in progress at the same time, and the results are written in the order of experiments as soon as they are
+     * ready, so the memory doesn't depend on the number of experiments. If the search of the experiment takes more
+     * than the timeout, the experiment is cancelled (by interruption of its thread) and not written</p>
      *
-     * @return sample as list
+     * @param numberOfExperiments number of boards
+     * @param mode                perception of Harry
+     * @param searchFactory       creates search for each experiment
+     * @param pathToFile          file to write results
+     * @param timeoutInNanos      max time of the search of one experiment
      */
-    static LinkedList<Solution> createSample(LinkedList<ArrayList<Coordinate>> coordinates, Perception mode) {
-        LinkedList<Solution> sample = new LinkedList<>();
-        for (ArrayList<Coordinate> currentCoordinate : coordinates) {
-            try {
-                sample.add(new Solution(currentCoordinate, mode));
-            } catch (IllegalInputCoordinate e) {
-                e.printStackTrace();
+    static void startExperiments(int numberOfExperiments, Perception mode, Supplier<? extends FindPathInterface> searchFactory, String pathToFile, long timeoutInNanos) throws IOException, InterruptedException {
+        int numberOfThreads = Runtime.getRuntime().availableProcessors();
+        // Number of experiments which are in progress or wait for writing
+        int maxExperimentsInProgress = 4 * numberOfThreads;
+
+        ExecutorService service = Executors.newFixedThreadPool(numberOfThreads);
+        ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor();
+        ArrayDeque<Future<ResultOfExperiment>> experimentsInProgress = new ArrayDeque<>();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(pathToFile))) {
+            writer.write("# [length timeNs win]\n");
+            for (int i = 0; i < numberOfExperiments; i++) {
+                if (experimentsInProgress.size() == maxExperimentsInProgress) {
+                    writeResult(writer, experimentsInProgress.poll());
+                }
+                experimentsInProgress.add(submitExperiment(service, timeouts, mode, searchFactory, timeoutInNanos));
             }
+            while (!experimentsInProgress.isEmpty()) {
+                writeResult(writer, experimentsInProgress.poll());
+            }
+        } finally {
+            service.shutdownNow();
+            timeouts.shutdownNow();
         }
-        return sample;
-    }
-
-    /**
-     * Creates coordinates for samples
-     *
-     * @return coordinates as list
-     */
-    static LinkedList<ArrayList<Coordinate>> createCoordinatesForSample() {
-        LinkedList<ArrayList<Coordinate>> coordinates = new LinkedList<>();
-        for (int i = 0; i < numberOfExperiments; i++) {
-            coordinates.add(Solution.RandomInput.getRandomInputCoordinates());
-        }
-        return coordinates;
     }
 
     /**
-     * Starts experiments from sample and write results to file
+     * Submits one experiment. The timeout starts when the search starts, not when the experiment is submitted
      *
-     * @param pathToFile file to write results
+     * @return future with result or null if the board cannot be created
      */
-    static void startExperiments(LinkedList<Solution> sample, String pathToFile, int mode, FindPathInterface typeOfSearch) throws ExecutionException, InterruptedException {
-        try {
-            FileWriter writer = new FileWriter(pathToFile);
-            writer.write("# [length time win]\n");
-
-            for (Solution solution : sample) {
-                int maxTimeoutOfBacktracking = 3;
-
-                ExecutorService service = Executors.newSingleThreadExecutor();
-                Future<Integer> future = service.submit(() -> Main.calculatePathLength(solution.findPath(typeOfSearch)));
-                try {
-                    long startStamp = System.currentTimeMillis();
-                    int length = future.get(maxTimeoutOfBacktracking, TimeUnit.SECONDS);
-                    long endStamp = System.currentTimeMillis();
-
-                    String result = length == 0 ? "l" : "w";
-                    writer.write(length + " " + (endStamp - startStamp) + " " + result + "\n");
-                } catch (TimeoutException e) {
-                    future.cancel(true);
-                }
-                service.shutdownNow();
+    private static Future<ResultOfExperiment> submitExperiment(ExecutorService service, ScheduledExecutorService timeouts, Perception mode, Supplier<? extends FindPathInterface> searchFactory, long timeoutInNanos) {
+        // The task is stored before it can start, so the timeout always has the experiment to cancel
+        AtomicReference<Future<ResultOfExperiment>> experiment = new AtomicReference<>();
+        FutureTask<ResultOfExperiment> task = new FutureTask<>(() -> {
+            Solution solution;
+            try {
+                solution = new Solution(mode);
+            } catch (IllegalInputCoordinate e) {
+                return null;
             }
-            writer.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
+            FindPathInterface typeOfSearch = searchFactory.get();
 
-    private static double getMedianOfTime(LinkedList<ResultOfExperiment> results) {
-        int sum = 0;
-        int numberOfWins = 0;
-        for (ResultOfExperiment result : results) {
-            if (result.isWin) {
-                sum += result.time;
-                numberOfWins++;
+            ScheduledFuture<?> timeout = timeouts.schedule(() -> experiment.get().cancel(true), timeoutInNanos, TimeUnit.NANOSECONDS);
+            try {
+                long startStamp = System.nanoTime();
+                int length = Main.calculatePathLength(solution.findPath(typeOfSearch));
+                long endStamp = System.nanoTime();
+                return new ResultOfExperiment(length, endStamp - startStamp, length == 0 ? "l" : "w");
+            } finally {
+                timeout.cancel(false);
             }
-        }
-        return sum / (double) numberOfWins;
+        });
+        experiment.set(task);
+        service.execute(task);
+        return task;
     }
 
-    private static double getMedianOfLength(LinkedList<ResultOfExperiment> results) {
-        int numberOfSteps = 0;
-        int numberOfWins = 0;
-        for (ResultOfExperiment result : results) {
-            if (result.isWin) {
-                numberOfSteps += result.numberOfSteps;
-                numberOfWins++;
-            }
+    /**
+     * Waits for the experiment and writes its result. Cancelled and failed experiments are skipped
+     */
+    private static void writeResult(BufferedWriter writer, Future<ResultOfExperiment> experiment) throws IOException, InterruptedException {
+        ResultOfExperiment result;
+        try {
+            result = experiment.get();
+        } catch (CancellationException e) {
+            return;
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            return;
         }
-        return numberOfSteps / (double) numberOfWins;
-    }
-
-    private static double getWinRate(LinkedList<ResultOfExperiment> results) {
-        int wins = 0;
-        for (ResultOfExperiment result : results) {
-            if (result.isWin) {
-                wins++;
-            }
+        if (result != null) {
+            writer.write(result.numberOfSteps + " " + result.time + " " + (result.isWin ? "w" : "l") + "\n");
         }
-        return wins / (double) results.size();
     }
 
     /**
      * Print info about statistics from file:
      * <p>Number of experiments</p>
-     * <p>Mean value of time execution</p>
-     * <p>Mean value of path length</p>
      * <p>Win rate</p>
+     * <p>Mean value, percentiles 50, 90, 99 and max of time execution</p>
+     * <p>Mean value, percentiles 50, 90, 99 and max of path length</p>
      *
-     * @param nameOfFile file to read
+     * @param nameOfFile file to read, see {@link ExperimentStatistics} for format
      */
-    static void printInfoAboutStatistics(String nameOfFile) throws FileNotFoundException {
-        LinkedList<ResultOfExperiment> results = parseResultsFromFile(nameOfFile);
+    static void printInfoAboutStatistics(String nameOfFile) throws IOException {
         IO.printString("Statistics from file: " + nameOfFile);
-        IO.printString("Number of experiments: " + results.size());
-        IO.printString("Mean value of time execution: " + getMedianOfTime(results) + " ms");
-        IO.printString("Mean value of path length: " + getMedianOfLength(results) + " steps");
-        IO.printString("Win rate: " + getWinRate(results) * 100 + "%");
+        printInfoAboutStatistics(ExperimentStatistics.fromFile(nameOfFile));
     }
 
     /**
-     * Parse data from file in format of:
-     * <p>X Y Z</p>
-     * where X=length, Y=time, Z=win or lose
-     * <p>Comments in file starts from #</p>
-     *
-     * @param fileName file to parse
-     * @return parsed results as list
+     * Same as {@link #printInfoAboutStatistics(String)} for statistics which are already calculated, for example
+     * merged from several files
      */
-    private static LinkedList<ResultOfExperiment> parseResultsFromFile(String fileName) throws FileNotFoundException {
-        Scanner scanner = new Scanner(new FileReader(fileName));
-        LinkedList<ResultOfExperiment> results = new LinkedList<>();
-        while (scanner.hasNext()) {
-            String row = scanner.nextLine();
-            if (row.charAt(0) == '#') {
-                continue;
-            }
-            ResultOfExperiment result = ResultOfExperiment.parseString(row);
-            results.add(result);
-        }
-        return results;
+    static void printInfoAboutStatistics(ExperimentStatistics statistics) {
+        Histogram times = statistics.getTimes();
+        Histogram lengths = statistics.getLengths();
+        IO.printString("Number of experiments: " + statistics.getNumberOfExperiments());
+        IO.printString("Win rate: " + statistics.getWinRate() * 100 + "%");
+        IO.printString(String.format(Locale.ROOT, "Time of execution: mean %.3f ms, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+                times.getMean() / NANOS_PER_MILLI, times.getValueAtPercentile(50) / NANOS_PER_MILLI,
+                times.getValueAtPercentile(90) / NANOS_PER_MILLI, times.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                times.getMax() / NANOS_PER_MILLI));
+        IO.printString(String.format(Locale.ROOT, "Length of the path: mean %.2f, p50 %d, p90 %d, p99 %d, max %d steps",
+                lengths.getMean(), lengths.getValueAtPercentile(50), lengths.getValueAtPercentile(90),
+                lengths.getValueAtPercentile(99), lengths.getMax()));
     }
 }
@@ -21,6 +21,15 @@ public enum TypeOfCell {
         return danger;
     }
 
+    /**
+     * Bit of this type in the packed representation of the cell used by {@link Board}
+     *
+     * @return mask with the only bit set
+     */
+    public int getMask() {
+        return 1 << ordinal();
+    }
+
     /**
      * Matching each type to string for output
      *
@@ -0,0 +1,218 @@
+package eduard.zaripov;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cells which Harry sees around him, precomputed once for each configuration of {@link Perception}
+ * <p>The cells are kept as segments of rows: delta of X and the range of deltas of Y. So the perception checks
+ * the whole segment of the row at once instead of the cell by cell</p>
+ * <p>The mask is built from any set of offsets ({@link #fromOffsets}) or from the named shape ({@link #of}). Harry
+ * either knows the state of each cell of the mask or notices only dangers on it. Masks are shared: the mask with the
+ * same cells and the same visibility is created once</p>
+ * <p>{@link #forRadius(int)} is the vision of the game: radius 1 is all eight neighbors and Harry knows the state
+ * of each of them, greater radius is the border of the square with this radius without its corners and Harry notices
+ * only dangers on it</p>
+ */
+public class VisionMask {
+    /**
+     * Named shapes of the mask with the radius
+     */
+    public enum Shape {
+        /**
+         * All cells of the square with the radius besides Harry's cell
+         */
+        SQUARE,
+        /**
+         * Border of the square with the radius without its corners
+         */
+        RING,
+        /**
+         * Cells with Manhattan distance not greater than the radius besides Harry's cell
+         */
+        DIAMOND
+    }
+
+    /**
+     * All created masks, each mask is the key for itself
+     */
+    private static final ConcurrentHashMap<VisionMask, VisionMask> masks = new ConcurrentHashMap<>();
+    /**
+     * Masks of named shapes by the list of the shape, the radius and the visibility, so cells of the shape are
+     * calculated once
+     */
+    private static final ConcurrentHashMap<List<Object>, VisionMask> masksOfShapes = new ConcurrentHashMap<>();
+
+    private final int radius;
+    /**
+     * Segments: delta of X and the first and the last delta of Y
+     */
+    private final int[] deltaX;
+    private final int[] fromDeltaY;
+    private final int[] toDeltaY;
+    private final int numberOfCells;
+    private final boolean isEverythingVisible;
+
+    /**
+     * @param offsets             sorted by X, then by Y, without repeats
+     * @param isEverythingVisible true if Harry knows the state of all cells, not only dangers
+     */
+    private VisionMask(ArrayList<Coordinate> offsets, boolean isEverythingVisible) {
+        this.isEverythingVisible = isEverythingVisible;
+        // Neighbor offsets in the same row are joined into one segment
+        ArrayList<int[]> segments = new ArrayList<>();
+        int maxDistance = 0;
+        for (Coordinate offset : offsets) {
+            int[] last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && last[0] == offset.getX() && last[2] + 1 == offset.getY()) {
+                last[2]++;
+            } else {
+                segments.add(new int[]{offset.getX(), offset.getY(), offset.getY()});
+            }
+            maxDistance = Math.max(maxDistance, Math.max(Math.abs(offset.getX()), Math.abs(offset.getY())));
+        }
+        this.radius = maxDistance;
+
+        deltaX = new int[segments.size()];
+        fromDeltaY = new int[segments.size()];
+        toDeltaY = new int[segments.size()];
+        for (int i = 0; i < segments.size(); i++) {
+            deltaX[i] = segments.get(i)[0];
+            fromDeltaY[i] = segments.get(i)[1];
+            toDeltaY[i] = segments.get(i)[2];
+        }
+        numberOfCells = offsets.size();
+    }
+
+    /**
+     * @param radius radius of view, at least 1
+     * @return mask of the game for this radius
+     * @throws IllegalArgumentException if the radius is less than 1
+     */
+    public static VisionMask forRadius(int radius) {
+        return radius == 1 ? of(Shape.SQUARE, 1, true) : of(Shape.RING, radius, false);
+    }
+
+    /**
+     * @param shape               shape of the mask
+     * @param radius              radius of the shape, at least 1
+     * @param isEverythingVisible true if Harry knows the state of all cells, false if he notices only dangers
+     * @return mask with cells of the shape
+     * @throws IllegalArgumentException if the radius is less than 1
+     */
+    public static VisionMask of(Shape shape, int radius, boolean isEverythingVisible) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius of perception should be at least 1");
+        }
+        return masksOfShapes.computeIfAbsent(Arrays.asList(shape, radius, isEverythingVisible),
+                key -> fromOffsets(getOffsets(shape, radius), isEverythingVisible));
+    }
+
+    private static ArrayList<Coordinate> getOffsets(Shape shape, int radius) {
+        ArrayList<Coordinate> offsets = new ArrayList<>();
+        for (int i = -radius; i <= radius; i++) {
+            for (int j = -radius; j <= radius; j++) {
+                if (isInShape(shape, radius, i, j)) {
+                    offsets.add(new Coordinate(i, j));
+                }
+            }
+        }
+        return offsets;
+    }
+
+    private static boolean isInShape(Shape shape, int radius, int i, int j) {
+        if (i == 0 && j == 0) {
+            return false;
+        }
+        switch (shape) {
+            case SQUARE:
+                return true;
+            case RING:
+                return (Math.abs(i) == radius) != (Math.abs(j) == radius);
+            case DIAMOND:
+                return Math.abs(i) + Math.abs(j) <= radius;
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    /**
+     * @param offsets             cells which Harry sees: X and Y relative to Harry, in any order
+     * @param isEverythingVisible true if Harry knows the state of all cells, false if he notices only dangers
+     * @return mask with these cells
+     * @throws IllegalArgumentException if there are no offsets
+     */
+    public static VisionMask fromOffsets(ArrayList<Coordinate> offsets, boolean isEverythingVisible) {
+        ArrayList<Coordinate> sortedOffsets = new ArrayList<>();
+        offsets.stream()
+                .distinct()
+                .sorted((first, second) -> first.getX() != second.getX() ? Integer.compare(first.getX(), second.getX()) : Integer.compare(first.getY(), second.getY()))
+                .forEach(sortedOffsets::add);
+        if (sortedOffsets.isEmpty()) {
+            throw new IllegalArgumentException("Harry should see at least one cell");
+        }
+        VisionMask mask = new VisionMask(sortedOffsets, isEverythingVisible);
+        VisionMask existingMask = masks.putIfAbsent(mask, mask);
+        return existingMask == null ? mask : existingMask;
+    }
+
+    /**
+     * @return the greatest distance from Harry to the cell of the mask by X or Y
+     */
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return true if Harry knows the state of all cells of the mask, not only dangers
+     */
+    public boolean isEverythingVisible() {
+        return isEverythingVisible;
+    }
+
+    public int getNumberOfSegments() {
+        return deltaX.length;
+    }
+
+    public int getDeltaX(int segment) {
+        return deltaX[segment];
+    }
+
+    public int getFromDeltaY(int segment) {
+        return fromDeltaY[segment];
+    }
+
+    public int getToDeltaY(int segment) {
+        return toDeltaY[segment];
+    }
+
+    /**
+     * @return number of cells in the mask. It is the maximum number of cells detected from one position
+     */
+    public int getNumberOfCells() {
+        return numberOfCells;
+    }
+
+    /**
+     * Equals if the masks have the same cells and the same visibility
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        VisionMask that = (VisionMask) o;
+        return isEverythingVisible == that.isEverythingVisible && Arrays.equals(deltaX, that.deltaX)
+                && Arrays.equals(fromDeltaY, that.fromDeltaY) && Arrays.equals(toDeltaY, that.toDeltaY);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Boolean.hashCode(isEverythingVisible);
+        result = 31 * result + Arrays.hashCode(deltaX);
+        result = 31 * result + Arrays.hashCode(fromDeltaY);
+        result = 31 * result + Arrays.hashCode(toDeltaY);
+        return result;
+    }
+}